@@ -0,0 +1,47 @@
+package chess.bench;
+
+import chess.model.Game;
+import chess.model.Position;
+
+/**
+ * The curated positions every benchmark runs over, by name
+ *
+ * They cover the opening, a crowded middlegame full of captures, pins and
+ * castling, a sparse endgame and a promotion race, so a change that only helps
+ * one kind of position shows up as such.
+ */
+public class BenchPositions {
+    /** Position names, for JMH @Param lists */
+    public static final String START = "start";
+    public static final String MIDDLEGAME = "middlegame";
+    public static final String KIWIPETE = "kiwipete";
+    public static final String ENDGAME = "endgame";
+    public static final String PROMOTION = "promotion";
+
+    /**
+     * Returns the FEN of the position with the specified name
+     */
+    public static String getFen(String name) {
+        switch (name) {
+        case START:
+            return Position.START_FEN;
+        case MIDDLEGAME:
+            return "r1bq1rk1/pp2bppp/2n2n2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w KQ - 0 9";
+        case KIWIPETE:
+            return "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        case ENDGAME:
+            return "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+        case PROMOTION:
+            return "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1";
+        default:
+            throw new IllegalArgumentException("Unknown position: " + name);
+        }
+    }
+
+    /**
+     * Returns a new game starting from the position with the specified name
+     */
+    public static Game createGame(String name) {
+        return Position.fromFen(getFen(name)).toGame();
+    }
+}
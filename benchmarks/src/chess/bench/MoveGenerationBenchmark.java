@@ -0,0 +1,131 @@
+package chess.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import chess.model.Game;
+import chess.model.engine.BoardEvaluator;
+import chess.model.move.Move;
+
+/**
+ * Benchmarks the per-node work of a search: generating legal moves, executing
+ * and undoing them, detecting check and evaluating the board
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveGenerationBenchmark {
+    @Param({ BenchPositions.START, BenchPositions.MIDDLEGAME, BenchPositions.KIWIPETE, BenchPositions.ENDGAME,
+            BenchPositions.PROMOTION })
+    public String position;
+
+    /** The game being benchmarked, always back at the benchmarked position */
+    private Game game;
+
+    /** The legal moves of the position */
+    private List<Move> moves;
+
+    /** The position after each legal move, prepared so detecting check is measured alone */
+    private List<Game> children;
+
+    /** Reused move list, so only the generator's own allocations are measured */
+    private final List<Move> buffer = new ArrayList<Move>();
+
+    @Setup
+    public void setup() {
+        this.game = BenchPositions.createGame(this.position);
+        this.moves = this.game.getValidMoves(this.game.getActivePlayer());
+        this.children = new ArrayList<Game>();
+        for (Move move : this.moves) {
+            Game child = this.game.copy();
+            child.executeMove(move, false);
+            child.endTurn(false);
+            this.children.add(child);
+        }
+    }
+
+    /**
+     * Generates the legal moves of the side to move
+     */
+    @Benchmark
+    public int getValidMoves() {
+        this.buffer.clear();
+        this.game.getValidMoves(this.game.getActivePlayer(), this.buffer);
+        return this.buffer.size();
+    }
+
+    /**
+     * Executes and undoes each legal move, as a search does at every node
+     */
+    @Benchmark
+    public long executeUndo() {
+        long key = 0;
+        for (Move move : this.moves) {
+            this.game.executeMove(move, false);
+            this.game.endTurn(false);
+            key ^= this.game.getHashKey();
+            this.game.undoMove(move, false);
+            this.game.endTurn(false);
+        }
+        return key;
+    }
+
+    /**
+     * Tests whether the side to move is in check after each legal move
+     */
+    @Benchmark
+    public int isCheck() {
+        int checks = 0;
+        for (Game child : this.children) {
+            if (child.isCheck()) {
+                checks += 1;
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * Evaluates the board from the side to move's perspective
+     */
+    @Benchmark
+    public double evaluate() {
+        return BoardEvaluator.evaluate(this.game.getActivePlayer(), this.game.getBoard());
+    }
+
+    /**
+     * Copies the game, undo history included, and plays a move on the copy, so
+     * that any cost the copy defers to its first change is measured too
+     */
+    @Benchmark
+    public void copy(Blackhole blackhole) {
+        Game copy = this.game.copy();
+        copy.executeMove(this.moves.get(0), false);
+        copy.endTurn(false);
+        blackhole.consume(copy);
+    }
+
+    /**
+     * Snapshots the position and materializes it, as each search worker does
+     */
+    @Benchmark
+    public void snapshot(Blackhole blackhole) {
+        blackhole.consume(this.game.getPosition().toGame());
+    }
+}
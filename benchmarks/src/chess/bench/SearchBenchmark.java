@@ -0,0 +1,77 @@
+package chess.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import chess.model.Game;
+import chess.model.engine.MinimaxEngine;
+import chess.model.engine.SearchLimits;
+import chess.model.engine.SearchResult;
+
+/**
+ * Benchmarks a complete single-threaded search to a fixed depth
+ *
+ * The engine starts a new game before each search, outside the measured time,
+ * which clears the transposition table and each worker thread's history
+ * scores, so no search benefits from the one before it. Root moves aren't
+ * shuffled either, so every search visits the same tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+    @Param({ BenchPositions.START, BenchPositions.MIDDLEGAME, BenchPositions.KIWIPETE, BenchPositions.ENDGAME,
+            BenchPositions.PROMOTION })
+    public String position;
+
+    @Param({ "3", "4" })
+    public int depth;
+
+    /** The engine, reused so its worker pool is started only once */
+    private MinimaxEngine engine;
+
+    /** The game to search */
+    private Game game;
+
+    @Setup
+    public void setup() {
+        this.engine = new MinimaxEngine(1);
+        this.engine.setShuffleRootMoves(false);
+        this.engine.setClearHashOnNewGame(true);
+        this.game = BenchPositions.createGame(this.position);
+    }
+
+    @Setup(Level.Invocation)
+    public void clearHash() {
+        this.engine.newGame();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.engine.close();
+    }
+
+    /**
+     * Searches the position to the benchmarked depth
+     */
+    @Benchmark
+    public SearchResult selectMove() {
+        return this.engine.selectMoveAsync(this.game, new SearchLimits(this.depth)).join();
+    }
+}
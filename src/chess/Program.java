@@ -1,9 +1,36 @@
 package chess;
 
+import java.util.Arrays;
+
+import chess.cli.BenchCommand;
+import chess.cli.PerftCommand;
+import chess.cli.SpeedupCommand;
 import chess.gui.MainWindow;
 
 public class Program {
     public static void main(String[] args) {
+        // Headless commands
+        if (args.length > 0) {
+            String[] commandArgs = Arrays.copyOfRange(args, 1, args.length);
+            switch (args[0]) {
+            case "speedup":
+                SpeedupCommand.run(commandArgs);
+                return;
+
+            case "perft":
+                PerftCommand.run(commandArgs);
+                return;
+
+            case "bench":
+                BenchCommand.run(commandArgs);
+                return;
+
+            default:
+                System.err.println("Unknown command: " + args[0]);
+                System.exit(1);
+            }
+        }
+
         MainWindow window = new MainWindow();
         window.start();
     }
@@ -0,0 +1,33 @@
+package chess.cli;
+
+/**
+ * Argument parsing shared by the headless commands
+ */
+final class Arguments {
+    /**
+     * Returns the number at the specified index of the arguments, exiting with
+     * the specified usage line if it is missing, not a number or less than the
+     * specified minimum
+     */
+    static int parseNumber(String[] args, int i, int min, String usage) {
+        int number = min - 1;
+        if (i < args.length) {
+            try {
+                number = Integer.parseInt(args[i]);
+            } catch (NumberFormatException e) {
+                // Reported below
+            }
+        }
+        if (number < min) {
+            System.err.println(usage);
+            System.exit(1);
+        }
+        return number;
+    }
+
+    /**
+     * Arguments constructor, unused since the class only has static methods
+     */
+    private Arguments() {
+    }
+}
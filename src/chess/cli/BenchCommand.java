@@ -0,0 +1,82 @@
+package chess.cli;
+
+import chess.model.Game;
+import chess.model.Position;
+import chess.model.engine.MinimaxEngine;
+import chess.model.engine.SearchLimits;
+import chess.model.engine.SearchResult;
+
+/**
+ * Searches a fixed list of positions to a fixed depth with one thread and
+ * then with several, reporting the total node count and nodes/second
+ *
+ * Root moves aren't shuffled and every search starts from an empty
+ * transposition table and empty history tables, so the single-threaded node
+ * count only changes when the search itself does: it is a signature to
+ * compare before and after a change that should only affect speed. With
+ * several threads, the workers race to raise the shared root alpha, so that
+ * count varies between runs.
+ *
+ * Usage: bench [depth] [threads]
+ */
+public class BenchCommand {
+    /** Printed when the arguments can't be parsed */
+    private static final String USAGE = "Usage: bench [depth] [threads]";
+
+    /** The positions searched, as FEN */
+    private static final String[] POSITIONS = {
+            Position.START_FEN,
+            "r1bq1rk1/pp2bppp/2n2n2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w KQ - 0 9",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "r1bqkb1r/pppp1ppp/2n2n2/4p2Q/2B1P3/8/PPPP1PPP/RNB1K1NR w KQkq - 4 4",
+            "2r3k1/pp3ppp/4p3/3pP3/3P4/P4N2/1P3PPP/2R3K1 b - - 0 22",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "n1n5/PPPk4/8/8/8/8/4Kppp/5N1N b - - 0 1",
+            "6k1/5ppp/8/8/8/8/5PPP/3R2K1 w - - 0 1" };
+
+    /**
+     * Runs the command
+     */
+    public static void run(String[] args) {
+        int depth = args.length > 0 ? Arguments.parseNumber(args, 0, 1, USAGE) : 4;
+        int threads = args.length > 1 ? Arguments.parseNumber(args, 1, 1, USAGE)
+                : Runtime.getRuntime().availableProcessors();
+
+        // Warm up the JIT so the first run isn't penalized
+        bench(depth, 1, false);
+
+        System.out.println(String.format("%7s %12s %14s %12s", "threads", "time (ms)", "nodes", "nodes/s"));
+        bench(depth, 1, true);
+        if (threads > 1) {
+            bench(depth, threads, true);
+        }
+    }
+
+    /**
+     * Searches every position with the specified number of threads, printing
+     * the totals if requested
+     */
+    private static void bench(int depth, int threads, boolean print) {
+        long nodes = 0;
+        long elapsed = 0;
+
+        // Use a fresh engine so the run doesn't depend on the runs before it
+        try (MinimaxEngine engine = new MinimaxEngine(threads)) {
+            engine.setShuffleRootMoves(false);
+            engine.setClearHashOnNewGame(true);
+            for (String fen : POSITIONS) {
+                Game game = Position.fromFen(fen).toGame();
+                engine.newGame();
+                long start = System.nanoTime();
+                SearchResult result = engine.selectMoveAsync(game, new SearchLimits(depth)).join();
+                elapsed += System.nanoTime() - start;
+                nodes += result.getNodeCount();
+            }
+        }
+
+        if (print) {
+            double ms = elapsed / 1e6;
+            System.out.println(String.format("%7d %12.1f %,14d %,12d", threads, ms, nodes, (long) (nodes / (ms / 1000))));
+        }
+    }
+}
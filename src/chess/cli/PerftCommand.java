@@ -0,0 +1,78 @@
+package chess.cli;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import chess.model.Position;
+import chess.model.move.Perft;
+
+/**
+ * Counts the leaf nodes of the legal move tree from a position to a fixed
+ * depth, to check and time the move generator
+ *
+ * Usage: perft [depth] [-divide] [-threads n] [-hash mb] [fen]
+ *
+ * The position defaults to the standard starting position. With -divide, the
+ * count below each root move is printed too.
+ */
+public class PerftCommand {
+    /** Printed when the arguments can't be parsed */
+    private static final String USAGE = "Usage: perft [depth] [-divide] [-threads n] [-hash mb] [fen]";
+
+    /**
+     * Runs the command
+     */
+    public static void run(String[] args) {
+        int depth = 4;
+        int threads = 1;
+        int hashSizeMb = 0;
+        boolean divide = false;
+        List<String> fen = new ArrayList<String>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+            case "-divide":
+                divide = true;
+                break;
+
+            case "-threads":
+                threads = Arguments.parseNumber(args, ++i, 1, USAGE);
+                break;
+
+            case "-hash":
+                hashSizeMb = Arguments.parseNumber(args, ++i, 0, USAGE);
+                break;
+
+            default:
+                // The depth comes first; anything else is part of the FEN
+                if (i == 0 && args[i].matches("\\d+")) {
+                    depth = Integer.parseInt(args[i]);
+                } else {
+                    fen.add(args[i]);
+                }
+                break;
+            }
+        }
+        Position position = Position.fromFen(fen.isEmpty() ? Position.START_FEN : String.join(" ", fen));
+
+        Perft perft = new Perft(hashSizeMb);
+        long start = System.nanoTime();
+        Map<String, Long> counts = perft.divide(position, depth, threads);
+        double elapsed = (System.nanoTime() - start) / 1e6;
+
+        // At depth 0 the root itself is the only leaf, and there are no moves to divide by
+        long nodes = depth == 0 ? 1 : 0;
+        for (Map.Entry<String, Long> count : counts.entrySet()) {
+            if (divide) {
+                System.out.println(String.format("%s: %d", count.getKey(), count.getValue()));
+            }
+            nodes += count.getValue();
+        }
+        if (divide) {
+            System.out.println();
+        }
+        System.out.println(String.format("depth %d, %d moves, %d threads", depth, counts.size(), threads));
+        System.out.println(String.format("%12s %14s %12s", "time (ms)", "nodes", "nodes/s"));
+        System.out.println(String.format("%12.1f %,14d %,12d", elapsed, nodes, (long) (nodes / (elapsed / 1000))));
+    }
+}
@@ -0,0 +1,59 @@
+package chess.cli;
+
+import chess.model.Game;
+import chess.model.Player;
+import chess.model.engine.MinimaxEngine;
+import chess.model.engine.SearchLimits;
+import chess.model.piece.PieceColor;
+
+/**
+ * Reports Lazy SMP speedup by timing the same search with increasing thread
+ * counts
+ * 
+ * Usage: speedup [depth] [max threads]
+ */
+public class SpeedupCommand {
+    /** Printed when the arguments can't be parsed */
+    private static final String USAGE = "Usage: speedup [depth] [max threads]";
+
+    /**
+     * Runs the command
+     */
+    public static void run(String[] args) {
+        int depth = args.length > 0 ? Arguments.parseNumber(args, 0, 1, USAGE) : 4;
+        int maxThreads = args.length > 1 ? Arguments.parseNumber(args, 1, 1, USAGE)
+                : Runtime.getRuntime().availableProcessors();
+
+        // Warm up the JIT so the single-threaded baseline isn't penalized
+        search(depth, 1);
+
+        System.out.println(String.format("%7s %12s %14s %12s %8s", "threads", "time (ms)", "nodes", "nodes/s", "speedup"));
+        double baseline = 0;
+        for (int threads = 1;; threads = Math.min(threads * 2, maxThreads)) {
+            long start = System.nanoTime();
+            long nodes = search(depth, threads);
+            double elapsed = (System.nanoTime() - start) / 1e6;
+            if (threads == 1) {
+                baseline = elapsed;
+            }
+
+            System.out.println(String.format("%7d %12.1f %,14d %,12d %7.2fx", threads, elapsed, nodes,
+                    (long) (nodes / (elapsed / 1000)), baseline / elapsed));
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Searches the standard starting position, returning the number of nodes
+     */
+    private static long search(int depth, int threads) {
+        // Use a fresh engine each time so no run benefits from an earlier run's table
+        try (MinimaxEngine engine = new MinimaxEngine(threads)) {
+            engine.setLazySmp(true);
+            Game game = new Game(new Player(PieceColor.WHITE, null), new Player(PieceColor.BLACK, null));
+            return engine.selectMoveAsync(game, new SearchLimits(depth)).join().getNodeCount();
+        }
+    }
+}
@@ -2,6 +2,7 @@ package chess.gui;
 
 import chess.model.Board;
 import chess.model.Game;
+import chess.model.Square;
 import chess.model.move.Move;
 import chess.model.piece.Piece;
 
@@ -101,7 +102,7 @@ public class GuiBoard extends JPanel {
             // Attempt to move or select a different piece
             else {
                 // Try moving
-                if (this.tryExecuteMove(this.selectedSquare.getSquare().getPiece(), square.getSquare().getPosition())) {
+                if (this.tryExecuteMove(this.selectedSquare.getSquare().getPiece(), square.getPosition())) {
                     this.selectedSquare.setSelected(false);
                     this.selectedSquare = null;
                 }
@@ -165,9 +166,9 @@ public class GuiBoard extends JPanel {
                 // Set an alternate background color (null for default background)
                 Color alt = null;
                 if (mostRecent != null) {
-                    if (i == mostRecent.from.x && j == mostRecent.from.y) {
+                    if (i == Square.getX(mostRecent.from) && j == Square.getY(mostRecent.from)) {
                         alt = GuiColor.MOVE_FROM;
-                    } else if (i == mostRecent.to.x && j == mostRecent.to.y) {
+                    } else if (i == Square.getX(mostRecent.to) && j == Square.getY(mostRecent.to)) {
                         alt = GuiColor.MOVE_TO;
                     }
                 }
@@ -197,7 +198,7 @@ public class GuiBoard extends JPanel {
      * whether the move was executed
      */
     private boolean tryExecuteMove(Piece piece, Point to) {
-        Move m = new Move(to);
+        Move m = new Move(Square.getIndex(to.x, to.y));
         for (Move move : this.game.getValidMoves(piece)) {
             if (move.equals(m)) {
                 this.game.executeMove(move);
@@ -233,7 +234,7 @@ public class GuiBoard extends JPanel {
             // Get this piece's possible moves
             Piece piece = this.selectedSquare.getSquare().getPiece();
             for (Move move : this.game.getValidMoves(piece)) {
-                this.squares[move.to.x][move.to.y].setPossibleMove(true);
+                this.squares[Square.getX(move.to)][Square.getY(move.to)].setPossibleMove(true);
             }
         }
     }
@@ -3,6 +3,7 @@ package chess.gui;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Point;
 import java.awt.RenderingHints;
 
 import javax.swing.JLabel;
@@ -26,6 +27,12 @@ public class GuiSquare extends JPanel {
         return this.square;
     }
 
+    /** This square's (x,y) position */
+    public Point getPosition() {
+        int index = this.square.getPosition();
+        return new Point(Square.getX(index), Square.getY(index));
+    }
+
     /** Is this square a possible move? */
     private boolean isPossibleMove;
     public boolean getIsPossibleMove() {
@@ -1,5 +1,6 @@
 package chess.gui;
 
+import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dialog.ModalityType;
 import java.awt.Dimension;
@@ -12,11 +13,14 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.event.ItemEvent;
 import java.awt.event.ItemListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.util.List;
 
 import javax.swing.Box;
 import javax.swing.ButtonGroup;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JComboBox;
 import javax.swing.JDialog;
@@ -33,15 +37,18 @@ import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.UIManager;
 
 import chess.model.Game;
+import chess.model.GameClock;
 import chess.model.GameListener;
 import chess.model.GameResult;
 import chess.model.Player;
 import chess.model.engine.Engine;
 import chess.model.engine.EngineListener;
 import chess.model.engine.MinimaxEngine;
+import chess.model.engine.ParallelMinimaxEngine;
 import chess.model.move.Move;
 import chess.model.piece.PieceColor;
 
@@ -51,10 +58,22 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
     private GuiBoard board;
     private Game game;
     private Engine minimaxEngine;
+    private Engine parallelEngine;
     
     /** Default engine options */
     private int engineThreadCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
     private int engineDepth = 3;
+    private boolean enginePonder = true;
+    
+    /** Time controls as {name, base time ms, increment ms} */
+    private static final Object[][] TIME_CONTROLS = {
+        { "Untimed", 0L, 0L },
+        { "1 min", 60000L, 0L },
+        { "3 min + 2 sec", 180000L, 2000L },
+        { "5 min", 300000L, 0L },
+        { "15 min + 10 sec", 900000L, 10000L },
+    };
+    private int timeControl = 0;
     
     /** Toolstrip menu */
     private JMenuBar mbMain;
@@ -66,8 +85,11 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
     /** Engine move selection progress bar */
     private JProgressBar pbEngine;
     
+    /** Displays the engine's expected line of play */
+    private JLabel lPrincipalVariation;
+    
     /** Engine selection */
-    private JRadioButtonMenuItem rbNoEngine, rbMinimaxEngine;
+    private JRadioButtonMenuItem rbNoEngine, rbMinimaxEngine, rbParallelEngine;
 
     /** Undo and redo buttons */
     private JButton bUndo, bRedo;
@@ -106,6 +128,7 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
                     createMenu();
                     
                     minimaxEngine = new MinimaxEngine(engineThreadCount);
+                    parallelEngine = new ParallelMinimaxEngine(engineThreadCount);
                     
                     Player player1 = new Player(PieceColor.WHITE, null);
                     Player player2 = new Player(PieceColor.BLACK, minimaxEngine);
@@ -116,14 +139,34 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
                     
                     minimaxEngine.setGame(game);
                     minimaxEngine.addEngineListener(mainWindow);
-                    setEngineOptions(engineDepth, engineThreadCount);
+                    parallelEngine.setGame(game);
+                    parallelEngine.addEngineListener(game);
+                    parallelEngine.addEngineListener(mainWindow);
+                    setEngineOptions(engineDepth, engineThreadCount, enginePonder);
                     
                     // Wrap the board in another JPanel to lock 1:1 aspect ratio
                     JPanel squarePanel = new JPanel(new GridBagLayout());
                     squarePanel.setBackground(Color.black);
                     squarePanel.add(board);
-                    window.add(squarePanel);
-                    window.setContentPane(squarePanel);
+                    
+                    // Show the engine's expected line of play below the board
+                    lPrincipalVariation = new JLabel(" ");
+                    lPrincipalVariation.setForeground(Color.lightGray);
+                    JPanel contentPanel = new JPanel(new BorderLayout());
+                    contentPanel.setBackground(Color.black);
+                    contentPanel.add(squarePanel, BorderLayout.CENTER);
+                    contentPanel.add(lPrincipalVariation, BorderLayout.SOUTH);
+                    window.setContentPane(contentPanel);
+                    
+                    // Stop the engines' threads when the window closes
+                    window.addWindowListener(new WindowAdapter()
+                    {
+                        public void windowClosing(WindowEvent windowEvent)
+                        {
+                            minimaxEngine.close();
+                            parallelEngine.close();
+                        }
+                    });
                     
                     // Redraw the board when the window is resized
                     window.addComponentListener(new ComponentAdapter()
@@ -134,6 +177,15 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
                         }
                     });
                     
+                    // Show the clocks and detect flag falls while a player is thinking
+                    new Timer(200, new ActionListener()
+                    {
+                        public void actionPerformed(ActionEvent e)
+                        {
+                            refreshClock();
+                        }
+                    }).start();
+                    
                     // Start a new game
                     newGame();
                 }
@@ -161,7 +213,7 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         {
             this.board.setShowPossibleMoves(cbmiShowPossibleMoves.isSelected());
         }
-        else if(source == rbNoEngine || source == rbMinimaxEngine)
+        else if(source == rbNoEngine || source == rbMinimaxEngine || source == rbParallelEngine)
         {
             Player player2 = this.game.getPlayer2();
             if(rbNoEngine.isSelected())
@@ -172,6 +224,10 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
             {
                 player2.setEngine(this.minimaxEngine);
             }
+            else if(rbParallelEngine.isSelected())
+            {
+                player2.setEngine(this.parallelEngine);
+            }
         }
     }
 
@@ -236,6 +292,12 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         rbMinimaxEngine.addItemListener(this);
         groupEngine.add(rbMinimaxEngine);
         submenuEngine.add(rbMinimaxEngine);
+        
+        rbParallelEngine = new JRadioButtonMenuItem("Parallel Minimax Engine");
+        rbParallelEngine.setSelected(false);
+        rbParallelEngine.addItemListener(this);
+        groupEngine.add(rbParallelEngine);
+        submenuEngine.add(rbParallelEngine);
         menu.add(submenuEngine);
         
         miEngineOptions = new JMenuItem("Engine Options");
@@ -249,7 +311,7 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         JPanel pInfo = new JPanel(new FlowLayout(FlowLayout.LEFT));
         
         tfInfo = new JTextField();
-        tfInfo.setColumns(20);
+        tfInfo.setColumns(26);
         tfInfo.setEditable(false);
         tfInfo.setMaximumSize(tfInfo.getPreferredSize());
         
@@ -321,6 +383,20 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         }
     }
 
+    @Override
+    /**
+     * Shows the engine's expected line of play
+     */
+    public void enginePrincipalVariationUpdated(int depth, double score, List<Move> principalVariation)
+    {
+        StringBuilder line = new StringBuilder();
+        for(Move move : principalVariation)
+        {
+            line.append(' ').append(move.toNotation());
+        }
+        lPrincipalVariation.setText(String.format("Depth %d (%+.1f):%s", depth, score / 10, line));
+    }
+
     @Override
     /**
      * Undo operation completed
@@ -339,6 +415,21 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         this.refreshUndoRedo();
     }
     
+    /**
+     * Refresh the clock display, ending the game if the active player has run
+     * out of time
+     */
+    private void refreshClock()
+    {
+        GameClock clock = this.game.getClock();
+        if(clock == null || !clock.isRunning() || this.game.checkTime())
+        {
+            return;
+        }
+        tfInfo.setText(String.format("Turn: %s  (White %s, Black %s)", this.game.getActivePlayer().getColor(),
+            clock.format(PieceColor.WHITE), clock.format(PieceColor.BLACK)));
+    }
+    
     /**
      * Refresh the undo/redo buttons
      */
@@ -364,6 +455,10 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
             tfInfo.setText("Game over: Draw");
             break;
             
+        case GameResult.TIMEOUT:
+            tfInfo.setText("Time out - " + result.winner.getColor().toString() + " wins!");
+            break;
+            
         default:
             break;
         }
@@ -404,6 +499,7 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
     {
         this.game.startNewGame();
         tfInfo.setText("Turn: " + this.game.getActivePlayer().getColor().toString());
+        lPrincipalVariation.setText(" ");
         this.board.redraw();
         this.refreshUndoRedo();
     }
@@ -427,34 +523,55 @@ public class MainWindow implements ActionListener, ItemListener, GameListener, E
         }
         depth.setSelectedItem(this.engineDepth);
         
+        // Time control
+        JComboBox<String> time = new JComboBox<String>();
+        for (Object[] control : TIME_CONTROLS) {
+            time.addItem((String)control[0]);
+        }
+        time.setSelectedIndex(this.timeControl);
+        
+        // Search on the opponent's time
+        JCheckBox ponder = new JCheckBox("Think on your time (ponder)", this.enginePonder);
+        
         JPanel panel = new JPanel(new GridLayout(0, 1));
         panel.add(new JLabel("Search depth:"));
         panel.add(depth);
         panel.add(new JLabel("Threads:"));
         panel.add(threads);
+        panel.add(new JLabel("Time control:"));
+        panel.add(time);
+        panel.add(ponder);
         
         // Show the dialog
         int result = JOptionPane.showConfirmDialog(this.window, panel, "Engine Options",
             JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
         if (result == JOptionPane.OK_OPTION) {
-            this.setEngineOptions((int)depth.getSelectedItem(), (int)threads.getSelectedItem());
+            this.setEngineOptions((int)depth.getSelectedItem(), (int)threads.getSelectedItem(),
+                ponder.isSelected());
+            
+            // Changing the time control restarts the clocks
+            if (time.getSelectedIndex() != this.timeControl) {
+                this.timeControl = time.getSelectedIndex();
+                Object[] control = TIME_CONTROLS[this.timeControl];
+                long base = (long)control[1];
+                this.game.setClock(base > 0 ? new GameClock(base, (long)control[2]) : null);
+                tfInfo.setText("Turn: " + this.game.getActivePlayer().getColor().toString());
+            }
         }
     }
     
     /**
      * Sets engine options
      */
-    private void setEngineOptions(int depth, int threads) {
+    private void setEngineOptions(int depth, int threads, boolean ponder) {
         this.engineThreadCount = threads;
         this.engineDepth = depth;
+        this.enginePonder = ponder;
         
-        Engine engine = this.game.getPlayer2().getEngine();
-        if (engine != null) {
+        for (Engine engine : new Engine[] { this.minimaxEngine, this.parallelEngine }) {
             engine.setThreadCount(this.engineThreadCount);
-            MinimaxEngine minimax = (MinimaxEngine)engine;
-            if (minimax != null) {
-                minimax.setDepth(this.engineDepth);
-            }
+            engine.setDepth(this.engineDepth);
+            engine.setPonder(this.enginePonder);
         }
     }
 }
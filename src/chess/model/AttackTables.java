@@ -0,0 +1,148 @@
+package chess.model;
+
+import java.util.Arrays;
+
+import chess.model.piece.PieceColor;
+
+/**
+ * Precomputed per-square move and attack tables for the standard 8x8 board
+ *
+ * The tables are built once, when the class is loaded, so move generation
+ * looks targets up by square index instead of stepping through direction
+ * offsets and bounds-checking every square. Target lists are ordered outwards
+ * from the square, so a slider can stop at the first piece in its way.
+ *
+ * The returned arrays are shared and must not be modified.
+ *
+ * https://www.chessprogramming.org/Attack_and_Defend_Maps
+ */
+public class AttackTables {
+    /** Number of squares covered by the tables */
+    private static final int SQUARES = 64;
+
+    /** Size of the board along each side */
+    private static final int SIZE = 8;
+
+    /** Knight move offsets as {x, y} */
+    private static final int[][] KNIGHT_OFFSETS = { { 1, 2 }, { 2, 1 }, { 2, -1 }, { 1, -2 }, { -1, -2 },
+            { -2, -1 }, { -2, 1 }, { -1, 2 } };
+
+    /** Knight targets by [square] */
+    private static final int[][] knightTargets;
+
+    /** King targets, castling aside, by [square] */
+    private static final int[][] kingTargets;
+
+    /** Squares a pawn attacks by [color][square] */
+    private static final int[][][] pawnCaptures;
+
+    /** Squares along each ray, nearest first, by [direction][square] */
+    private static final int[][][] rays;
+
+    /** Mask of the line from the first square through the second to the edge by [from][through] */
+    private static final long[][] lines;
+
+    static {
+        Direction[] directions = Direction.values();
+        knightTargets = new int[SQUARES][];
+        kingTargets = new int[SQUARES][];
+        pawnCaptures = new int[PieceColor.values().length][SQUARES][];
+        rays = new int[directions.length][SQUARES][];
+        lines = new long[SQUARES][SQUARES];
+        for (int square = 0; square < SQUARES; square++) {
+            int x = Square.getX(square);
+            int y = Square.getY(square);
+
+            int[] targets = new int[KNIGHT_OFFSETS.length];
+            int count = 0;
+            for (int[] offset : KNIGHT_OFFSETS) {
+                if (isValid(x + offset[0], y + offset[1])) {
+                    targets[count++] = Square.getIndex(x + offset[0], y + offset[1]);
+                }
+            }
+            knightTargets[square] = Arrays.copyOf(targets, count);
+
+            targets = new int[directions.length];
+            count = 0;
+            for (Direction direction : directions) {
+                if (isValid(x + direction.x, y + direction.y)) {
+                    targets[count++] = Square.getIndex(x + direction.x, y + direction.y);
+                }
+            }
+            kingTargets[square] = Arrays.copyOf(targets, count);
+
+            for (PieceColor color : PieceColor.values()) {
+                int forward = color == PieceColor.WHITE ? 1 : -1;
+                targets = new int[2];
+                count = 0;
+                for (int dx = -1; dx <= 1; dx += 2) {
+                    if (isValid(x + dx, y + forward)) {
+                        targets[count++] = Square.getIndex(x + dx, y + forward);
+                    }
+                }
+                pawnCaptures[color.ordinal()][square] = Arrays.copyOf(targets, count);
+            }
+
+            for (Direction direction : directions) {
+                targets = new int[SIZE];
+                count = 0;
+                long line = 0;
+                for (int rayX = x + direction.x, rayY = y + direction.y; isValid(rayX, rayY); rayX += direction.x,
+                        rayY += direction.y) {
+                    targets[count++] = Square.getIndex(rayX, rayY);
+                    line |= 1L << Square.getIndex(rayX, rayY);
+                }
+                rays[direction.ordinal()][square] = Arrays.copyOf(targets, count);
+                for (int i = 0; i < count; i++) {
+                    lines[square][targets[i]] = line;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the squares a knight on the specified square can move to
+     */
+    public static int[] getKnightTargets(int square) {
+        return knightTargets[square];
+    }
+
+    /**
+     * Returns the squares a king on the specified square can step to
+     */
+    public static int[] getKingTargets(int square) {
+        return kingTargets[square];
+    }
+
+    /**
+     * Returns the squares a pawn of the specified color on the specified square
+     * attacks
+     */
+    public static int[] getPawnCaptures(PieceColor color, int square) {
+        return pawnCaptures[color.ordinal()][square];
+    }
+
+    /**
+     * Returns the squares from the specified square in the given direction, up
+     * to the edge of the board, nearest first
+     */
+    public static int[] getRay(Direction direction, int square) {
+        return rays[direction.ordinal()][square];
+    }
+
+    /**
+     * Returns the mask of the squares on the line from the first square through
+     * the second, up to the edge of the board, or 0 if they aren't on a common
+     * rank, file or diagonal
+     */
+    public static long getLine(int from, int through) {
+        return lines[from][through];
+    }
+
+    /**
+     * Returns whether position (x,y) is on the board
+     */
+    private static boolean isValid(int x, int y) {
+        return x >= 0 && x < SIZE && y >= 0 && y < SIZE;
+    }
+}
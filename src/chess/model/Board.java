@@ -1,6 +1,5 @@
 package chess.model;
 
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -11,6 +10,7 @@ import chess.model.piece.Knight;
 import chess.model.piece.Pawn;
 import chess.model.piece.Piece;
 import chess.model.piece.PieceColor;
+import chess.model.piece.PieceId;
 import chess.model.piece.Queen;
 import chess.model.piece.Rook;
 
@@ -24,8 +24,11 @@ public class Board {
     /** Number of columns on a standard chess board */
     private static final int STD_COLUMNS = 8;
 
-    /** The board is a 2D matrix of squares */
-    private final Square[][] squares;
+    /** The pieces on this board by square index, or null for empty squares */
+    private final Piece[] pieces;
+
+    /** Views of the squares, created when first asked for, since the model only needs the pieces */
+    private Square[][] squares;
 
     /** Number of rows on this board */
     private final int rows;
@@ -39,27 +42,62 @@ public class Board {
         return this.columns;
     }
 
-    /** The positions of the kings on this board */
-    private final Point[] kingPositions;
-    public Point getKingPosition(Player player) {
-        int idx = player.getColor().ordinal();
+    /** The square indices of the kings on this board, or Square.NONE */
+    private final int[] kingPositions;
+    public int getKingPosition(Player player) {
+        return this.getKingPosition(player.getColor());
+    }
+    public int getKingPosition(PieceColor color) {
+        int idx = color.ordinal();
         if (idx < this.kingPositions.length) {
             return this.kingPositions[idx];
         }
-        return null;
+        return Square.NONE;
     }
-    public void setKingPosition(Player player, Point position) {
+    public void setKingPosition(Player player, int position) {
         this.setKingPosition(player.getColor(), position);
     }
-    public void setKingPosition(PieceColor color, Point position) {
+    public void setKingPosition(PieceColor color, int position) {
         int idx = color.ordinal();
         if (idx < this.kingPositions.length) {
             this.kingPositions[idx] = position;
         }
     }
     
-    /** The starting pieces on this board */
-    private final List<Piece> initialPieces;
+    /** Incrementally updated hash of the pieces on this board */
+    private long hashKey;
+    public long getHashKey() {
+        return this.hashKey;
+    }
+
+    /** Castling rights flags */
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL_CASTLING_RIGHTS = 15;
+
+    /** Which castles are still allowed, as castling rights flags */
+    private int castlingRights;
+    public int getCastlingRights() {
+        return this.castlingRights;
+    }
+    public void setCastlingRights(int castlingRights) {
+        this.hashKey ^= Zobrist.getCastlingKey(this.castlingRights) ^ Zobrist.getCastlingKey(castlingRights);
+        this.castlingRights = castlingRights;
+    }
+
+    /** Number of pieces on this board by [color][piece] */
+    private final int[][] pieceCounts;
+    public int getPieceCount(PieceColor color, PieceId id) {
+        return this.pieceCounts[color.ordinal()][id.ordinal()];
+    }
+
+    /** The starting pieces on this board, as piece codes by square index (see Piece.getCode()) */
+    private final byte[] initialPieces;
+
+    /** The castling rights at the start */
+    private final int initialCastlingRights;
 
     /**
      * Constructs a standard chess board
@@ -75,25 +113,21 @@ public class Board {
      * Board constructor
      */
     public Board(int rows, int columns, List<Piece> pieces) {
-        this.squares = new Square[rows][columns];
-        this.kingPositions = new Point[PieceColor.values().length];
+        this.pieces = new Piece[rows * columns];
+        this.kingPositions = new int[PieceColor.values().length];
+        Arrays.fill(this.kingPositions, Square.NONE);
+        this.pieceCounts = new int[PieceColor.values().length][PieceId.values().length];
         this.rows = rows;
         this.columns = columns;
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.columns; j++) {
-                SquareColor color = (((this.rows - 1 - i) + j) % 2 == 0) ? SquareColor.LIGHT : SquareColor.DARK;
-                squares[i][j] = new Square(color, i, j);
-            }
-        }
 
         // Set pieces
-        this.initialPieces = new ArrayList<Piece>();
+        this.initialPieces = new byte[rows * columns];
         for (Piece piece : pieces) {
-            int x = piece.getPosition().x;
-            int y = piece.getPosition().y;
-            if (isValidPosition(x, y)) {
-                this.squares[x][y].setPiece(piece);
-                this.initialPieces.add(piece.copy());
+            int x = Square.getX(piece.getPosition());
+            int y = Square.getY(piece.getPosition());
+            if (piece.getPosition() != Square.NONE && isValidPosition(x, y)) {
+                this.setPiece(x, y, piece);
+                this.initialPieces[piece.getPosition()] = piece.getCode();
 
                 // Set king positions
                 if (piece instanceof King) {
@@ -101,6 +135,23 @@ public class Board {
                 }
             }
         }
+        this.initialCastlingRights = this.getInitialCastlingRights();
+        this.setCastlingRights(this.initialCastlingRights);
+    }
+
+    /**
+     * Constructs a board from piece codes by square index, which it keeps as
+     * its starting pieces and so must not be changed afterwards
+     */
+    Board(int rows, int columns, byte[] pieces, int castlingRights) {
+        this.pieces = new Piece[rows * columns];
+        this.kingPositions = new int[PieceColor.values().length];
+        this.pieceCounts = new int[PieceColor.values().length][PieceId.values().length];
+        this.rows = rows;
+        this.columns = columns;
+        this.initialPieces = pieces;
+        this.initialCastlingRights = castlingRights;
+        this.setInitialPieces();
     }
 
     /**
@@ -115,23 +166,43 @@ public class Board {
      */
     public void reset() {
         // Clear the remaining pieces
-        for (int i = 0; i < this.rows; i++) {
-            for (int j = 0; j < this.columns; j++) {
-                squares[i][j].setPiece(null);
-            }
+        Arrays.fill(this.pieces, null);
+        this.hashKey = 0;
+        this.castlingRights = 0;
+        for (int[] counts : this.pieceCounts) {
+            Arrays.fill(counts, 0);
         }
-        
-        // Set the original pieces
-        for (Piece piece : this.initialPieces) {
-            int x = piece.getPosition().x;
-            int y = piece.getPosition().y;
-            this.squares[x][y].setPiece(piece);
-
-            // Set king positions
-            if (piece instanceof King) {
-                this.setKingPosition(piece.getColor(), piece.getPosition());
+        this.setInitialPieces();
+    }
+
+    /**
+     * Places new copies of the starting pieces on this empty board, since
+     * moves change the pieces on the board, and restores the starting
+     * castling rights
+     */
+    private void setInitialPieces() {
+        Arrays.fill(this.kingPositions, Square.NONE);
+        for (int i = 0; i < this.initialPieces.length; i++) {
+            if (this.initialPieces[i] != 0) {
+                Piece piece = Piece.fromCode(this.initialPieces[i], i);
+                this.setPiece(i, piece);
+
+                // Set king positions
+                if (piece instanceof King) {
+                    this.setKingPosition(piece.getColor(), i);
+                }
             }
         }
+        this.setCastlingRights(this.initialCastlingRights);
+    }
+
+    /**
+     * Returns the castling rights left after a move from one position to
+     * another: moving the king or a rook, or capturing a rook, gives up the
+     * castles that need it
+     */
+    public int getCastlingRightsAfter(int from, int to) {
+        return this.castlingRights & ~(this.getCastlingMask(from) | this.getCastlingMask(to));
     }
 
     /**
@@ -151,28 +222,60 @@ public class Board {
     }
 
     /**
-     * Gets the piece at the square at the specified position, if any
+     * Gets the piece at the square with the specified index, if any
      */
-    public Piece getPiece(Point position) {
-        return this.getPiece(position.x, position.y);
+    public Piece getPiece(int square) {
+        return this.pieces[square];
     }
 
     /**
      * Gets the piece at the square at position (x,y), if any
      */
     public Piece getPiece(int x, int y) {
-        Square square = this.getSquare(x, y);
-        if (square != null) {
-            return square.getPiece();
+        if (isValidPosition(x, y)) {
+            return this.pieces[Square.getIndex(x, y)];
         }
         return null;
     }
 
     /**
-     * Gets the square at position (x,y), if any
+     * Places a piece (or null) on the square at position (x,y)
+     */
+    public void setPiece(int x, int y, Piece piece) {
+        this.setPiece(Square.getIndex(x, y), piece);
+    }
+
+    /**
+     * Places a piece (or null) on the square with the specified index, keeping
+     * the hash key up to date
+     */
+    public void setPiece(int index, Piece piece) {
+        Piece existing = this.pieces[index];
+        if (existing != null) {
+            this.hashKey ^= Zobrist.getKey(existing, index);
+            this.pieceCounts[existing.getColor().ordinal()][existing.getId().ordinal()] -= 1;
+        }
+        this.pieces[index] = piece;
+        if (piece != null) {
+            this.hashKey ^= Zobrist.getKey(piece, index);
+            this.pieceCounts[piece.getColor().ordinal()][piece.getId().ordinal()] += 1;
+        }
+    }
+
+    /**
+     * Returns whether neither side has enough material left to checkmate: bare
+     * kings, or a single bishop or knight against a bare king
      */
-    public Square getSquare(Point location) {
-        return this.getSquare(location.x, location.y);
+    public boolean isInsufficientMaterial() {
+        int minorPieces = 0;
+        for (int[] counts : this.pieceCounts) {
+            if (counts[PieceId.PAWN.ordinal()] > 0 || counts[PieceId.ROOK.ordinal()] > 0
+                    || counts[PieceId.QUEEN.ordinal()] > 0) {
+                return false;
+            }
+            minorPieces += counts[PieceId.BISHOP.ordinal()] + counts[PieceId.KNIGHT.ordinal()];
+        }
+        return minorPieces <= 1;
     }
 
     /**
@@ -180,6 +283,9 @@ public class Board {
      */
     public Square getSquare(int x, int y) {
         if (isValidPosition(x, y)) {
+            if (this.squares == null) {
+                this.squares = this.createSquares();
+            }
             return this.squares[x][y];
         }
         return null;
@@ -198,43 +304,105 @@ public class Board {
     private Board(Board other) {
         this.rows = other.rows;
         this.columns = other.columns;
-        this.squares = new Square[this.rows][this.columns];
+        this.pieces = new Piece[other.pieces.length];
+        for (int i = 0; i < this.pieces.length; i++) {
+            if (other.pieces[i] != null) {
+                this.pieces[i] = other.pieces[i].copy();
+            }
+        }
+        this.kingPositions = other.kingPositions.clone();
+        this.hashKey = other.hashKey;
+        this.castlingRights = other.castlingRights;
+        this.pieceCounts = new int[other.pieceCounts.length][];
+        for (int i = 0; i < this.pieceCounts.length; i++) {
+            this.pieceCounts[i] = other.pieceCounts[i].clone();
+        }
+        this.initialPieces = other.initialPieces;
+        this.initialCastlingRights = other.initialCastlingRights;
+    }
+
+    /**
+     * Returns views of this board's squares
+     */
+    private Square[][] createSquares() {
+        Square[][] squares = new Square[this.rows][this.columns];
         for (int i = 0; i < this.rows; i++) {
             for (int j = 0; j < this.columns; j++) {
-                this.squares[i][j] = other.squares[i][j].copy();
+                SquareColor color = (((this.rows - 1 - i) + j) % 2 == 0) ? SquareColor.LIGHT : SquareColor.DARK;
+                squares[i][j] = new Square(this, color, i, j);
             }
         }
-        this.kingPositions = new Point[other.kingPositions.length];
-        for (int i = 0; i < this.kingPositions.length; i++) {
-            this.kingPositions[i] = new Point(other.kingPositions[i]);
+        return squares;
+    }
+    
+    /**
+     * Returns the castles allowed by the unmoved kings and rooks on their
+     * starting squares
+     */
+    private int getInitialCastlingRights() {
+        int castlingRights = 0;
+        for (int row : new int[] { 0, this.rows - 1 }) {
+            Piece king = this.getPiece(4, row);
+            if (!(king instanceof King) || king.hasMoved()) {
+                continue;
+            }
+            int kingside = king.getColor() == PieceColor.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+            int queenside = king.getColor() == PieceColor.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+            if (this.isUnmovedRook(7, row, king.getColor())) {
+                castlingRights |= kingside;
+            }
+            if (this.isUnmovedRook(0, row, king.getColor())) {
+                castlingRights |= queenside;
+            }
         }
-        this.initialPieces = new ArrayList<Piece>();
-        for (Piece piece : other.initialPieces) {
-            this.initialPieces.add(piece.copy());
+        return castlingRights;
+    }
+
+    /**
+     * Returns whether the square at position (x,y) holds an unmoved rook of the
+     * specified color
+     */
+    private boolean isUnmovedRook(int x, int y, PieceColor color) {
+        Piece piece = this.getPiece(x, y);
+        return piece instanceof Rook && piece.getColor() == color && !piece.hasMoved();
+    }
+
+    /**
+     * Returns the castling rights lost when a piece moves from or to the square
+     * with the specified index
+     */
+    private int getCastlingMask(int square) {
+        int x = Square.getX(square);
+        int y = Square.getY(square);
+        if (y == 0) {
+            return x == 4 ? WHITE_KINGSIDE | WHITE_QUEENSIDE : x == 7 ? WHITE_KINGSIDE : x == 0 ? WHITE_QUEENSIDE : 0;
+        } else if (y == this.rows - 1) {
+            return x == 4 ? BLACK_KINGSIDE | BLACK_QUEENSIDE : x == 7 ? BLACK_KINGSIDE : x == 0 ? BLACK_QUEENSIDE : 0;
         }
+        return 0;
     }
-    
+
     /**
      * Returns the standard white pieces
      */
     private static List<Piece> getStandardWhitePieces() {
         return new ArrayList<>(Arrays.asList(
-            new Rook   (PieceColor.WHITE, new Point(0, 0)),
-            new Knight (PieceColor.WHITE, new Point(1, 0)),
-            new Bishop (PieceColor.WHITE, new Point(2, 0)),
-            new Queen  (PieceColor.WHITE, new Point(3, 0)),
-            new King   (PieceColor.WHITE, new Point(4, 0)),
-            new Bishop (PieceColor.WHITE, new Point(5, 0)),
-            new Knight (PieceColor.WHITE, new Point(6, 0)),
-            new Rook   (PieceColor.WHITE, new Point(7, 0)),
-            new Pawn   (PieceColor.WHITE, new Point(0, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(1, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(2, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(3, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(4, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(5, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(6, 1)),
-            new Pawn   (PieceColor.WHITE, new Point(7, 1))
+            new Rook   (PieceColor.WHITE, Square.getIndex(0, 0)),
+            new Knight (PieceColor.WHITE, Square.getIndex(1, 0)),
+            new Bishop (PieceColor.WHITE, Square.getIndex(2, 0)),
+            new Queen  (PieceColor.WHITE, Square.getIndex(3, 0)),
+            new King   (PieceColor.WHITE, Square.getIndex(4, 0)),
+            new Bishop (PieceColor.WHITE, Square.getIndex(5, 0)),
+            new Knight (PieceColor.WHITE, Square.getIndex(6, 0)),
+            new Rook   (PieceColor.WHITE, Square.getIndex(7, 0)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(0, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(1, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(2, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(3, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(4, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(5, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(6, 1)),
+            new Pawn   (PieceColor.WHITE, Square.getIndex(7, 1))
             ));
     }
     
@@ -243,22 +411,22 @@ public class Board {
      */
     private static List<Piece> getStandardBlackPieces() {
         return new ArrayList<>(Arrays.asList(
-            new Rook   (PieceColor.BLACK, new Point(0, 7)),
-            new Knight (PieceColor.BLACK, new Point(1, 7)),
-            new Bishop (PieceColor.BLACK, new Point(2, 7)),
-            new Queen  (PieceColor.BLACK, new Point(3, 7)),
-            new King   (PieceColor.BLACK, new Point(4, 7)),
-            new Bishop (PieceColor.BLACK, new Point(5, 7)),
-            new Knight (PieceColor.BLACK, new Point(6, 7)),
-            new Rook   (PieceColor.BLACK, new Point(7, 7)),
-            new Pawn   (PieceColor.BLACK, new Point(0, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(1, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(2, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(3, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(4, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(5, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(6, 6)),
-            new Pawn   (PieceColor.BLACK, new Point(7, 6))
+            new Rook   (PieceColor.BLACK, Square.getIndex(0, 7)),
+            new Knight (PieceColor.BLACK, Square.getIndex(1, 7)),
+            new Bishop (PieceColor.BLACK, Square.getIndex(2, 7)),
+            new Queen  (PieceColor.BLACK, Square.getIndex(3, 7)),
+            new King   (PieceColor.BLACK, Square.getIndex(4, 7)),
+            new Bishop (PieceColor.BLACK, Square.getIndex(5, 7)),
+            new Knight (PieceColor.BLACK, Square.getIndex(6, 7)),
+            new Rook   (PieceColor.BLACK, Square.getIndex(7, 7)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(0, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(1, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(2, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(3, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(4, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(5, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(6, 6)),
+            new Pawn   (PieceColor.BLACK, Square.getIndex(7, 6))
             ));
     }
 
@@ -272,7 +440,7 @@ public class Board {
         result = prime * result + columns;
         result = prime * result + Arrays.hashCode(kingPositions);
         result = prime * result + rows;
-        result = prime * result + Arrays.deepHashCode(squares);
+        result = prime * result + Arrays.hashCode(pieces);
         return result;
     }
 
@@ -294,7 +462,7 @@ public class Board {
             return false;
         if (rows != other.rows)
             return false;
-        if (!Arrays.deepEquals(squares, other.squares))
+        if (!Arrays.equals(pieces, other.pieces))
             return false;
         return true;
     }
@@ -1,14 +1,16 @@
 package chess.model;
 
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
 
 import chess.model.engine.Engine;
 import chess.model.engine.EngineListener;
 import chess.model.move.Move;
+import chess.model.move.MoveGenerator;
 import chess.model.move.MoveManager;
 import chess.model.piece.Piece;
+import chess.model.piece.PieceColor;
+import chess.model.piece.PieceId;
 
 /**
  * Represents a chess game
@@ -36,6 +38,37 @@ public class Game implements EngineListener {
         return this.activePlayer;
     }
 
+    /** This game's clock, or null for an untimed game */
+    private GameClock clock;
+    public GameClock getClock() {
+        return this.clock;
+    }
+    public void setClock(GameClock clock) {
+        this.clock = clock;
+        if (this.clock != null) {
+            this.clock.reset();
+            this.clock.start(this.activePlayer.getColor());
+        }
+    }
+
+    /** Incremented whenever the position is replaced rather than played on */
+    private volatile int generation = 0;
+    public int getGeneration() {
+        return this.generation;
+    }
+
+    /** The state needed to undo each executed move, oldest first */
+    private UndoStack undoStack = new UndoStack();
+    public UndoStack getUndoStack() {
+        return this.undoStack;
+    }
+
+    /** Number of plies since the last capture or pawn move, for the fifty-move rule */
+    private int halfmoveClock = 0;
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
     /** Handles move execution, undo/redo, history */
     private final MoveManager moveManager;
 
@@ -85,13 +118,36 @@ public class Game implements EngineListener {
         return new Game(this);
     }
 
+    /**
+     * Returns an immutable snapshot of the current position
+     */
+    public Position getPosition() {
+        long[] keys = this.undoStack.getKeys(Math.max(0, this.undoStack.size() - this.halfmoveClock));
+        return new Position(this.board, this.activePlayer.getColor(), this.halfmoveClock, this.getHashKey(), keys);
+    }
+
     /**
      * Starts a new game
      */
     public void startNewGame() {
+        this.stopEngines();
         this.activePlayer = this.player1;
         this.board.reset();
         this.moveManager.reset();
+        this.undoStack.clear();
+        this.halfmoveClock = 0;
+        if (this.clock != null) {
+            this.clock.reset();
+            this.clock.start(this.activePlayer.getColor());
+        }
+
+        // Let engines discard per-game state
+        for (Player player : new Player[] { this.player1, this.player2 }) {
+            Engine engine = player.getEngine();
+            if (engine != null) {
+                engine.newGame();
+            }
+        }
     }
 
     @Override
@@ -114,6 +170,14 @@ public class Game implements EngineListener {
      * Ends the current turn
      */
     public void endTurn(boolean history) {
+        // A player who ran out of time before completing the move loses
+        if (history && this.clock != null) {
+            if (this.checkTime()) {
+                return;
+            }
+            this.clock.press(this.activePlayer.getColor());
+        }
+
         // Swap the active player
         this.activePlayer = this.activePlayer.getOpponent();
 
@@ -126,6 +190,10 @@ public class Game implements EngineListener {
             // No valid moves?
             int moves = this.getValidMoves(this.activePlayer).size();
             if (moves == 0) {
+                if (this.clock != null) {
+                    this.clock.stop();
+                }
+
                 // Checkmate if we're in check
                 if (this.isCheck()) {
                     Player winner = this.activePlayer.getOpponent();
@@ -144,6 +212,17 @@ public class Game implements EngineListener {
                 }
             }
 
+            // Draw by repetition, the fifty-move rule or insufficient material
+            else if (this.getRepetitionCount() >= 2 || this.isDrawByRule()) {
+                if (this.clock != null) {
+                    this.clock.stop();
+                }
+                GameResult result = new GameResult(GameResult.DRAW, null);
+                for (GameListener listener : this.listeners) {
+                    listener.gameCompleted(result);
+                }
+            }
+
             // Otherwise, there is at least one valid move, so start the next turn
             else {
                 this.activePlayer.takeTurn();
@@ -151,6 +230,23 @@ public class Game implements EngineListener {
         }
     }
 
+    /**
+     * Ends the game if the active player has run out of time; returns whether
+     * the game ended
+     */
+    public boolean checkTime() {
+        if (this.clock == null || !this.clock.isRunning() || !this.clock.isFlagged(this.activePlayer.getColor())) {
+            return false;
+        }
+        this.clock.stop();
+        this.stopEngines();
+        GameResult result = new GameResult(GameResult.TIMEOUT, this.activePlayer.getOpponent());
+        for (GameListener listener : this.listeners) {
+            listener.gameCompleted(result);
+        }
+        return true;
+    }
+
     /**
      * Subscribe to game events
      */
@@ -165,6 +261,17 @@ public class Game implements EngineListener {
         this.listeners.remove(listener);
     }
 
+    /**
+     * Returns the hash key of the current position, including the side to move
+     */
+    public long getHashKey() {
+        long key = this.board.getHashKey();
+        if (this.activePlayer.getColor() == PieceColor.BLACK) {
+            key ^= Zobrist.getSideKey();
+        }
+        return key;
+    }
+
     /**
      * Returns whether an engine is running
      */
@@ -181,11 +288,15 @@ public class Game implements EngineListener {
      */
     public boolean isCheck() {
         // Locate the active player's king
-        Point kingPosition = this.board.getKingPosition(this.activePlayer);
+        int kingPosition = this.board.getKingPosition(this.activePlayer);
+
+        if (kingPosition == Square.NONE) {
+            return false;
+        }
 
-        // Return whether the active player's opponent is threatening the king
-        List<Move> moves = this.moveManager.getMoves(this.activePlayer.getOpponent());
-        return moves.contains(new Move(kingPosition));
+        // Return whether the active player's opponent is attacking the king
+        PieceColor opponent = this.activePlayer.getOpponent().getColor();
+        return MoveGenerator.isAttacked(this.board, kingPosition, opponent, Square.NONE);
     }
 
     /**
@@ -197,23 +308,81 @@ public class Game implements EngineListener {
     }
 
     /**
-     * Returns whether a draw has been forced by stalemate TODO:DML Threefold
-     * repetition
+     * Returns whether a draw has been forced by stalemate, threefold repetition,
+     * the fifty-move rule or insufficient material
      */
     public boolean isDraw() {
+        if (this.getRepetitionCount() >= 2 || this.isDrawByRule()) {
+            return true;
+        }
         return !this.isCheck() && this.getValidMoves(this.activePlayer).size() == 0;
     }
 
+    /**
+     * Returns whether the fifty-move rule or insufficient material draws the
+     * current position, regardless of the moves available
+     */
+    public boolean isDrawByRule() {
+        return this.halfmoveClock >= 100 || this.board.isInsufficientMaterial();
+    }
+
+    /**
+     * Returns the number of times the current position has occurred before;
+     * only positions since the last capture or pawn move can repeat it
+     */
+    public int getRepetitionCount() {
+        long key = this.getHashKey();
+        int count = 0;
+        int oldest = Math.max(0, this.undoStack.size() - this.halfmoveClock);
+        for (int i = this.undoStack.size() - 2; i >= oldest; i -= 2) {
+            if (this.undoStack.getKey(i) == key) {
+                count += 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns whether the current position has occurred before; the search
+     * scores a single repetition as a draw, since the side that repeated can
+     * always repeat again
+     */
+    public boolean isRepetition() {
+        return this.getRepetitionCount() > 0;
+    }
+
+    /**
+     * Records the state the specified move can't restore by itself (the current
+     * position, halfmove clock and castling rights, and the moving and captured
+     * pieces) before it is executed
+     */
+    public void pushHistory(Move move) {
+        Piece moved = this.board.getPiece(move.from);
+        Piece captured = this.board.getPiece(move.to);
+        this.undoStack.push(this.getHashKey(), this.halfmoveClock, this.board.getCastlingRights(), moved, captured);
+
+        // Captures and pawn moves can't be reversed, so earlier positions can't repeat
+        if (captured != null || moved.getId() == PieceId.PAWN) {
+            this.halfmoveClock = 0;
+        } else {
+            this.halfmoveClock += 1;
+        }
+    }
+
+    /**
+     * Discards the most recent state recorded, restoring the halfmove clock,
+     * after a move is undone
+     */
+    public void popHistory() {
+        this.halfmoveClock = this.undoStack.getHalfmoveClock();
+        this.undoStack.pop();
+    }
+
     /**
      * Returns the most recent move, if any
      */
     public Move getMostRecentMove() {
-        List<Move> history = this.getMoveHistory();
-        int size = history.size();
-        if (size > 0) {
-            return history.get(size - 1);
-        }
-        return null;
+        return this.moveManager.getMostRecentMove();
     }
 
     /**
@@ -230,6 +399,13 @@ public class Game implements EngineListener {
         return this.moveManager.getValidMoves(player);
     }
 
+    /**
+     * Adds all of the specified player's valid moves to the given list
+     */
+    public void getValidMoves(Player player, List<Move> moves) {
+        this.moveManager.getValidMoves(player, moves);
+    }
+
     /**
      * Returns all of the specified piece's valid moves
      */
@@ -242,7 +418,7 @@ public class Game implements EngineListener {
      */
     public boolean isValidMove(Move move) {
         for (Move m : this.getValidMoves(move.fromPiece)) {
-            if (move.from.equals(m.from) && move.to.equals(m.to)) {
+            if (move.from == m.from && move.to == m.to) {
                 return true;
             }
         }
@@ -274,12 +450,18 @@ public class Game implements EngineListener {
      * Undo a pair of moves
      */
     public void undo() {
+        boolean wasRunning = this.stopEngines();
         if (this.moveManager.undo()) {
             // Notify listeners
             for (GameListener listener : this.listeners) {
                 listener.undoCompleted();
             }
         }
+
+        // Restart the engine on the new position
+        if (wasRunning) {
+            this.activePlayer.takeTurn();
+        }
     }
 
     /**
@@ -293,12 +475,34 @@ public class Game implements EngineListener {
      * Redo a pair of moves
      */
     public void redo() {
+        boolean wasRunning = this.stopEngines();
         if (this.moveManager.redo()) {
             // Notify listeners
             for (GameListener listener : this.listeners) {
                 listener.redoCompleted();
             }
         }
+
+        // Restart the engine on the new position
+        if (wasRunning) {
+            this.activePlayer.takeTurn();
+        }
+    }
+
+    /**
+     * Stops any running engine and discards its result by starting a new
+     * generation; returns whether the active player's engine was running
+     */
+    private boolean stopEngines() {
+        boolean wasRunning = this.isEngineRunning();
+        this.generation += 1;
+        for (Player player : new Player[] { this.player1, this.player2 }) {
+            Engine engine = player.getEngine();
+            if (engine != null) {
+                engine.stop();
+            }
+        }
+        return wasRunning;
     }
 
     /**
@@ -315,6 +519,32 @@ public class Game implements EngineListener {
     public void engineProgressUpdated(double progress, long moveCount, long hashMapHits) {
     }
 
+    @Override
+    /**
+     * Unused
+     */
+    public void enginePrincipalVariationUpdated(int depth, double score, List<Move> principalVariation) {
+    }
+
+    /**
+     * Constructs a game from a position snapshot
+     */
+    Game(Position position) {
+        this(new Player(PieceColor.WHITE, null), new Player(PieceColor.BLACK, null), position.createBoard());
+        if (position.getSideToMove() != this.activePlayer.getColor()) {
+            this.activePlayer = this.activePlayer.getOpponent();
+        }
+
+        // Only the positions since the last irreversible move are needed to detect
+        // repetitions; they are never undone, so they don't need their pieces
+        long[] keys = position.getRepetitionKeys();
+        this.halfmoveClock = position.getHalfmoveClock();
+        int castlingRights = this.board.getCastlingRights();
+        for (int i = 0; i < keys.length; i++) {
+            this.undoStack.push(keys[i], this.halfmoveClock - keys.length + i, castlingRights, null, null);
+        }
+    }
+
     /**
      * Game copy constructor
      */
@@ -324,6 +554,8 @@ public class Game implements EngineListener {
         this.player2 = other.player2.copy();
         this.board = other.board.copy();
         this.moveManager = other.moveManager.copy(this);
+        this.undoStack = other.undoStack.copy();
+        this.halfmoveClock = other.halfmoveClock;
 
         // Initialize player relationships
         this.player1.setOpponent(this.player2);
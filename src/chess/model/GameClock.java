@@ -0,0 +1,112 @@
+package chess.model;
+
+import chess.model.piece.PieceColor;
+
+/**
+ * Chess clock giving each player a base time plus an increment per move
+ */
+public class GameClock {
+    /** Starting time per player, in milliseconds */
+    private final long baseTime;
+    public long getBaseTime() {
+        return this.baseTime;
+    }
+
+    /** Time added after each move, in milliseconds */
+    private final long increment;
+    public long getIncrement() {
+        return this.increment;
+    }
+
+    /** Remaining time by color as of the last press, in milliseconds */
+    private final long[] remaining = new long[PieceColor.values().length];
+
+    /** The color whose clock is running, if any */
+    private PieceColor running;
+
+    /** When the running clock was started, in nanoseconds */
+    private long runningSince;
+
+    /**
+     * GameClock constructor
+     */
+    public GameClock(long baseTime, long increment) {
+        this.baseTime = baseTime;
+        this.increment = increment;
+        this.reset();
+    }
+
+    /**
+     * Stops the clock and restores the base time for both players
+     */
+    public synchronized void reset() {
+        this.running = null;
+        for (int i = 0; i < this.remaining.length; i++) {
+            this.remaining[i] = this.baseTime;
+        }
+    }
+
+    /**
+     * Starts the specified player's clock
+     */
+    public synchronized void start(PieceColor color) {
+        this.stop();
+        this.running = color;
+        this.runningSince = System.nanoTime();
+    }
+
+    /**
+     * Stops the running clock
+     */
+    public synchronized void stop() {
+        if (this.running != null) {
+            this.remaining[this.running.ordinal()] = this.getRemaining(this.running);
+            this.running = null;
+        }
+    }
+
+    /**
+     * Ends the specified player's move, adding the increment and starting the
+     * opponent's clock
+     */
+    public synchronized void press(PieceColor color) {
+        if (this.running == color) {
+            this.stop();
+        }
+        this.remaining[color.ordinal()] += this.increment;
+        this.start(color == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE);
+    }
+
+    /**
+     * Returns the specified player's remaining time, in milliseconds
+     */
+    public synchronized long getRemaining(PieceColor color) {
+        long remaining = this.remaining[color.ordinal()];
+        if (this.running == color) {
+            remaining -= (System.nanoTime() - this.runningSince) / 1000000;
+        }
+        return remaining;
+    }
+
+    /**
+     * Returns whether the specified player has run out of time
+     */
+    public boolean isFlagged(PieceColor color) {
+        return this.getRemaining(color) <= 0;
+    }
+
+    /**
+     * Returns whether a player's clock is running
+     */
+    public synchronized boolean isRunning() {
+        return this.running != null;
+    }
+
+    /**
+     * Returns the specified player's remaining time as m:ss
+     */
+    public String format(PieceColor color) {
+        long seconds = Math.max(0, this.getRemaining(color)) / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -10,6 +10,9 @@ public class GameResult {
     /** Result - checkmate */
     public static final int CHECKMATE = 1;
 
+    /** Result - the loser ran out of time */
+    public static final int TIMEOUT = 2;
+
     /** The result ID */
     public int result;
 
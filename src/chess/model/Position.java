@@ -0,0 +1,191 @@
+package chess.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import chess.model.piece.Bishop;
+import chess.model.piece.King;
+import chess.model.piece.Knight;
+import chess.model.piece.Pawn;
+import chess.model.piece.Piece;
+import chess.model.piece.PieceColor;
+import chess.model.piece.Queen;
+import chess.model.piece.Rook;
+
+/**
+ * An immutable snapshot of a game's position
+ *
+ * A position holds only what the rules need to continue from it: the pieces,
+ * the castling rights, the side to move, the halfmove clock, the hash key and
+ * the keys of the positions since the last capture or pawn move, which are
+ * the only ones it can repeat. Unlike Game.copy(), taking a snapshot and
+ * materializing it into a new game doesn't depend on how long the game has
+ * been going.
+ */
+public final class Position {
+    /** FEN of the standard starting position */
+    public static final String START_FEN = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+    /** Size of a board described by FEN */
+    private static final int FEN_SIZE = 8;
+
+    /** Size of the board */
+    private final int rows;
+    private final int columns;
+
+    /** The pieces on the board, as piece codes by square index (see Piece.getCode()) */
+    private final byte[] pieces;
+
+    /** Which castles are still allowed, as Board castling rights flags */
+    private final int castlingRights;
+
+    /** The color whose turn it is */
+    private final PieceColor sideToMove;
+    public PieceColor getSideToMove() {
+        return this.sideToMove;
+    }
+
+    /** Number of plies since the last capture or pawn move */
+    private final int halfmoveClock;
+    public int getHalfmoveClock() {
+        return this.halfmoveClock;
+    }
+
+    /** Hash key of this position, including the side to move */
+    private final long hashKey;
+    public long getHashKey() {
+        return this.hashKey;
+    }
+
+    /** Hash keys of the positions since the last capture or pawn move, oldest first */
+    private final long[] repetitionKeys;
+
+    /**
+     * Position constructor
+     */
+    Position(Board board, PieceColor sideToMove, int halfmoveClock, long hashKey, long[] repetitionKeys) {
+        this.rows = board.getRows();
+        this.columns = board.getColumns();
+        this.pieces = new byte[this.rows * this.columns];
+        for (int i = 0; i < this.pieces.length; i++) {
+            Piece piece = board.getPiece(i);
+            if (piece != null) {
+                this.pieces[i] = piece.getCode();
+            }
+        }
+        this.castlingRights = board.getCastlingRights();
+        this.sideToMove = sideToMove;
+        this.halfmoveClock = halfmoveClock;
+        this.hashKey = hashKey;
+        this.repetitionKeys = repetitionKeys;
+    }
+
+    /**
+     * Parses a position from Forsyth-Edwards Notation
+     *
+     * Only the placement field is required; the side to move, castling rights
+     * and halfmove clock default to white, none and 0. The en passant field is
+     * ignored since the model doesn't support en passant captures.
+     *
+     * https://www.chessprogramming.org/Forsyth-Edwards_Notation
+     */
+    public static Position fromFen(String fen) {
+        String[] fields = fen.trim().split("\\s+");
+        String[] ranks = fields[0].split("/");
+        if (ranks.length != FEN_SIZE) {
+            throw new IllegalArgumentException("FEN must have " + FEN_SIZE + " ranks: " + fen);
+        }
+
+        // Ranks are listed from black's side of the board, files from a to h
+        List<Piece> pieces = new ArrayList<Piece>();
+        for (int i = 0; i < FEN_SIZE; i++) {
+            int y = FEN_SIZE - 1 - i;
+            int x = 0;
+            for (char c : ranks[i].toCharArray()) {
+                if (Character.isDigit(c)) {
+                    x += c - '0';
+                } else if (x < FEN_SIZE) {
+                    pieces.add(createPiece(c, Square.getIndex(x, y), fen));
+                    x += 1;
+                } else {
+                    x = FEN_SIZE + 1;
+                }
+            }
+            if (x != FEN_SIZE) {
+                throw new IllegalArgumentException("FEN rank " + (y + 1) + " doesn't have " + FEN_SIZE + " files: " + fen);
+            }
+        }
+        Board board = new Board(FEN_SIZE, FEN_SIZE, pieces);
+
+        PieceColor sideToMove = PieceColor.WHITE;
+        if (fields.length > 1 && fields[1].equals("b")) {
+            sideToMove = PieceColor.BLACK;
+        } else if (fields.length > 1 && !fields[1].equals("w")) {
+            throw new IllegalArgumentException("FEN side to move must be w or b: " + fen);
+        }
+
+        int castlingRights = 0;
+        if (fields.length > 2) {
+            castlingRights |= fields[2].contains("K") ? Board.WHITE_KINGSIDE : 0;
+            castlingRights |= fields[2].contains("Q") ? Board.WHITE_QUEENSIDE : 0;
+            castlingRights |= fields[2].contains("k") ? Board.BLACK_KINGSIDE : 0;
+            castlingRights |= fields[2].contains("q") ? Board.BLACK_QUEENSIDE : 0;
+        }
+
+        // The board allows every castle whose king and rook are on their original squares
+        board.setCastlingRights(castlingRights & board.getCastlingRights());
+
+        int halfmoveClock = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+        long hashKey = board.getHashKey() ^ (sideToMove == PieceColor.BLACK ? Zobrist.getSideKey() : 0);
+        return new Position(board, sideToMove, halfmoveClock, hashKey, new long[0]);
+    }
+
+    /**
+     * Returns a new game starting from this position, with engineless players
+     * and no move history to undo
+     */
+    public Game toGame() {
+        return new Game(this);
+    }
+
+    /**
+     * Returns a new board set up with this position's pieces and castling
+     * rights
+     */
+    Board createBoard() {
+        // The board never changes its starting pieces, so it can share them
+        return new Board(this.rows, this.columns, this.pieces, this.castlingRights);
+    }
+
+    /**
+     * Returns a new piece for the specified FEN letter on the square with the
+     * specified index
+     */
+    private static Piece createPiece(char c, int square, String fen) {
+        PieceColor color = Character.isUpperCase(c) ? PieceColor.WHITE : PieceColor.BLACK;
+        switch (Character.toLowerCase(c)) {
+        case 'p':
+            return new Pawn(color, square);
+        case 'n':
+            return new Knight(color, square);
+        case 'b':
+            return new Bishop(color, square);
+        case 'r':
+            return new Rook(color, square);
+        case 'q':
+            return new Queen(color, square);
+        case 'k':
+            return new King(color, square);
+        default:
+            throw new IllegalArgumentException("Unknown FEN piece '" + c + "': " + fen);
+        }
+    }
+
+    /**
+     * Returns the hash keys of the positions since the last capture or pawn
+     * move, oldest first
+     */
+    long[] getRepetitionKeys() {
+        return this.repetitionKeys.clone();
+    }
+}
@@ -1,26 +1,33 @@
 package chess.model;
 
-import java.awt.Point;
-
 import chess.model.piece.Piece;
 
 /**
  * Represents a square on a chess board
+ *
+ * Squares are identified by an index from 0 to 63, y * 8 + x, so that the
+ * model needs no coordinate objects. The board keeps its pieces by index, and
+ * a square is only a view of one of them, for the GUI.
  */
 public class Square {
-    /** This square's (x,y) position */
-    private final Point position;
-    public Point getPosition() {
+    /** Index standing for no square, e.g. the position of a captured piece */
+    public static final int NONE = -1;
+
+    /** This square's index */
+    private final int position;
+    public int getPosition() {
         return this.position;
     }
 
+    /** The board this square is on */
+    private final Board board;
+
     /** The piece on this square, if any */
-    private Piece piece;
     public Piece getPiece() {
-        return piece;
+        return this.board.getPiece(this.position);
     }
     public void setPiece(Piece piece) {
-        this.piece = piece;
+        this.board.setPiece(this.position, piece);
     }
 
     /** This square's color */
@@ -32,17 +39,38 @@ public class Square {
     /**
      * Square constructor
      */
-    public Square(SquareColor color, int x, int y) {
-        this.position = new Point(x, y);
+    Square(Board board, SquareColor color, int x, int y) {
+        this.board = board;
+        this.position = getIndex(x, y);
         this.color = color;
-        this.piece = null;
     }
 
     /**
-     * Returns a deep copy of this square
+     * Returns the index of the square at position (x,y)
+     */
+    public static int getIndex(int x, int y) {
+        return (y << 3) | x;
+    }
+
+    /**
+     * Returns the x coordinate (file) of the square with the specified index
+     */
+    public static int getX(int index) {
+        return index & 7;
+    }
+
+    /**
+     * Returns the y coordinate (rank) of the square with the specified index
+     */
+    public static int getY(int index) {
+        return index >> 3;
+    }
+
+    /**
+     * Returns the name of the square with the specified index, e.g. "e4"
      */
-    public Square copy() {
-        return new Square(this);
+    public static String getName(int index) {
+        return Character.toString('a' + getX(index)) + (getY(index) + 1);
     }
 
     @Override
@@ -51,24 +79,16 @@ public class Square {
      */
     public String toString() {
         StringBuilder str = new StringBuilder();
-        str.append("Square [" + this.position.x + "," + this.position.y + "], ");
-        if (this.piece != null) {
-            str.append(this.piece.toString());
+        str.append("Square [" + getX(this.position) + "," + getY(this.position) + "], ");
+        Piece piece = this.getPiece();
+        if (piece != null) {
+            str.append(piece.toString());
         } else {
             str.append("empty");
         }
         return str.toString();
     }
 
-    /**
-     * Square copy constructor
-     */
-    private Square(Square other) {
-        this.position = new Point(other.position);
-        this.color = other.color;
-        this.piece = other.piece != null ? other.piece.copy() : null;
-    }
-
     @Override
     /**
      * Auto-generated hashCode()
@@ -77,8 +97,8 @@ public class Square {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((color == null) ? 0 : color.hashCode());
-        result = prime * result + ((piece == null) ? 0 : piece.hashCode());
-        result = prime * result + ((position == null) ? 0 : position.hashCode());
+        result = prime * result + ((getPiece() == null) ? 0 : getPiece().hashCode());
+        result = prime * result + position;
         return result;
     }
 
@@ -96,15 +116,12 @@ public class Square {
         Square other = (Square) obj;
         if (color != other.color)
             return false;
-        if (piece == null) {
-            if (other.piece != null)
+        if (getPiece() == null) {
+            if (other.getPiece() != null)
                 return false;
-        } else if (!piece.equals(other.piece))
+        } else if (!getPiece().equals(other.getPiece()))
             return false;
-        if (position == null) {
-            if (other.position != null)
-                return false;
-        } else if (!position.equals(other.position))
+        if (position != other.position)
             return false;
         return true;
     }
@@ -0,0 +1,279 @@
+package chess.model;
+
+import java.util.Arrays;
+
+import chess.model.piece.Piece;
+
+/**
+ * Stack of the state needed to undo executed moves, oldest first
+ *
+ * Each entry holds the hash key, halfmove clock and castling rights before a
+ * move, and the pieces that moved and were captured, so undoing puts the same
+ * pieces back: recording a move and undoing it allocate nothing. Each game has
+ * its own stack, so every search thread, which searches its own game, has its
+ * own too.
+ *
+ * Entries are kept in segments of parallel arrays, each on top of the first
+ * entries of the segment below it. A stack only writes to its top segment;
+ * copying it hands that segment over to be shared, so the copy and the
+ * original both read it and push onto new segments of their own. Copying a
+ * game and playing on from either copy therefore costs the same however long
+ * the game has been going.
+ *
+ * Two games must never hold the same piece, so only the stack that recorded
+ * an entry hands out its pieces. The segments also keep the pieces' codes
+ * (see Piece.getCode()), from which a copy undoing past the point it was
+ * copied at rebuilds pieces of its own.
+ */
+public class UndoStack {
+    /** Number of entries a new segment has room for */
+    private static final int SEGMENT_CAPACITY = 16;
+
+    /** The segment this stack writes to, if any, holding its most recent entries */
+    private Segment top;
+
+    /** The entries below the top segment, which are shared with copies and never change */
+    private Segment shared;
+
+    /** Number of entries */
+    private int size;
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * UndoStack constructor
+     */
+    public UndoStack() {
+        this(null, 0);
+    }
+
+    /**
+     * Returns a copy of this stack, which shares its entries
+     */
+    public UndoStack copy() {
+        // Neither stack may write to the top segment once both can read it
+        if (this.top != null && this.top.size > 0) {
+            this.shared = this.top;
+            this.top = null;
+        }
+        return new UndoStack(this.shared, this.size);
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        this.top = null;
+        this.shared = null;
+        this.size = 0;
+    }
+
+    /**
+     * Records the state before a move
+     */
+    public void push(long key, int halfmoveClock, int castlingRights, Piece movedPiece, Piece capturedPiece) {
+        if (this.top == null) {
+            this.top = new Segment(this, this.shared, this.size);
+        }
+        this.top.push(key, halfmoveClock, castlingRights, movedPiece, capturedPiece);
+        this.size += 1;
+    }
+
+    /**
+     * Removes the most recent entry
+     */
+    public void pop() {
+        this.size -= 1;
+        if (this.top != null && this.size >= this.top.offset) {
+            this.top.pop();
+            return;
+        }
+
+        // The entry is shared, so leave it for the copies, and drop the segments
+        // with no entries left in this stack
+        this.top = null;
+        while (this.shared != null && this.shared.offset >= this.size) {
+            this.shared = this.shared.parent;
+        }
+    }
+
+    /**
+     * Returns the hash key recorded by the entry at the specified index
+     */
+    public long getKey(int index) {
+        Segment segment = this.getSegment(index);
+        return segment.keys[index - segment.offset];
+    }
+
+    /**
+     * Returns the hash keys recorded from the specified index on
+     */
+    public long[] getKeys(int from) {
+        long[] keys = new long[this.size - from];
+        Segment segment = this.top != null ? this.top : this.shared;
+        for (int i = this.size - 1; i >= from; i--) {
+            while (i < segment.offset) {
+                segment = segment.parent;
+            }
+            keys[i - from] = segment.keys[i - segment.offset];
+        }
+        return keys;
+    }
+
+    /**
+     * Returns the halfmove clock recorded by the most recent entry
+     */
+    public int getHalfmoveClock() {
+        Segment segment = this.getSegment(this.size - 1);
+        return segment.halfmoveClocks[this.size - 1 - segment.offset];
+    }
+
+    /**
+     * Returns the castling rights recorded by the most recent entry
+     */
+    public int getCastlingRights() {
+        Segment segment = this.getSegment(this.size - 1);
+        return segment.castlingRights[this.size - 1 - segment.offset];
+    }
+
+    /**
+     * Returns the moved piece recorded by the most recent entry, as it was
+     * before the move (e.g. a promoted pawn)
+     *
+     * An entry recorded by another stack, before this one was copied from it,
+     * gives a new piece like it on the square with the specified index.
+     */
+    public Piece getMovedPiece(int position) {
+        Segment segment = this.getSegment(this.size - 1);
+        int index = this.size - 1 - segment.offset;
+        if (segment.owner == this) {
+            return segment.movedPieces[index];
+        }
+        return Piece.fromCode(segment.movedCodes[index], position);
+    }
+
+    /**
+     * Returns the captured piece recorded by the most recent entry, or null if
+     * it captured nothing
+     *
+     * An entry recorded by another stack, before this one was copied from it,
+     * gives a new piece like it on the square with the specified index.
+     */
+    public Piece getCapturedPiece(int position) {
+        Segment segment = this.getSegment(this.size - 1);
+        int index = this.size - 1 - segment.offset;
+        if (segment.owner == this || segment.capturedCodes[index] == 0) {
+            return segment.capturedPieces[index];
+        }
+        return Piece.fromCode(segment.capturedCodes[index], position);
+    }
+
+    /**
+     * Returns the segment holding the entry at the specified index
+     */
+    private Segment getSegment(int index) {
+        Segment segment = this.top != null && index >= this.top.offset ? this.top : this.shared;
+        while (index < segment.offset) {
+            segment = segment.parent;
+        }
+        return segment;
+    }
+
+    /**
+     * UndoStack constructor
+     */
+    private UndoStack(Segment shared, int size) {
+        this.top = null;
+        this.shared = shared;
+        this.size = size;
+    }
+
+    /**
+     * A run of entries on top of the first entries of another segment
+     */
+    private static final class Segment {
+        /** The stack that recorded these entries, the only one that may hand out their pieces */
+        private final UndoStack owner;
+
+        /** The segment below this one, if any */
+        private final Segment parent;
+
+        /** Index of this segment's first entry, i.e. the number of entries below it */
+        private final int offset;
+
+        /** Hash keys of the positions the moves were executed from */
+        private long[] keys;
+
+        /** Halfmove clocks before the moves */
+        private int[] halfmoveClocks;
+
+        /** Castling rights before the moves */
+        private int[] castlingRights;
+
+        /** The pieces that moved, as they were before the move */
+        private Piece[] movedPieces;
+
+        /** The pieces captured by the moves, if any */
+        private Piece[] capturedPieces;
+
+        /** Codes of the moved pieces */
+        private byte[] movedCodes;
+
+        /** Codes of the captured pieces, or 0 */
+        private byte[] capturedCodes;
+
+        /** Number of entries */
+        private int size;
+
+        /**
+         * Segment constructor
+         */
+        private Segment(UndoStack owner, Segment parent, int offset) {
+            this.owner = owner;
+            this.parent = parent;
+            this.offset = offset;
+            this.keys = new long[SEGMENT_CAPACITY];
+            this.halfmoveClocks = new int[SEGMENT_CAPACITY];
+            this.castlingRights = new int[SEGMENT_CAPACITY];
+            this.movedPieces = new Piece[SEGMENT_CAPACITY];
+            this.capturedPieces = new Piece[SEGMENT_CAPACITY];
+            this.movedCodes = new byte[SEGMENT_CAPACITY];
+            this.capturedCodes = new byte[SEGMENT_CAPACITY];
+            this.size = 0;
+        }
+
+        /**
+         * Adds an entry, growing the arrays if needed
+         */
+        private void push(long key, int halfmoveClock, int castlingRights, Piece movedPiece, Piece capturedPiece) {
+            if (this.size == this.keys.length) {
+                int length = this.size * 2;
+                this.keys = Arrays.copyOf(this.keys, length);
+                this.halfmoveClocks = Arrays.copyOf(this.halfmoveClocks, length);
+                this.castlingRights = Arrays.copyOf(this.castlingRights, length);
+                this.movedPieces = Arrays.copyOf(this.movedPieces, length);
+                this.capturedPieces = Arrays.copyOf(this.capturedPieces, length);
+                this.movedCodes = Arrays.copyOf(this.movedCodes, length);
+                this.capturedCodes = Arrays.copyOf(this.capturedCodes, length);
+            }
+            this.keys[this.size] = key;
+            this.halfmoveClocks[this.size] = halfmoveClock;
+            this.castlingRights[this.size] = castlingRights;
+            this.movedPieces[this.size] = movedPiece;
+            this.capturedPieces[this.size] = capturedPiece;
+            this.movedCodes[this.size] = movedPiece != null ? movedPiece.getCode() : 0;
+            this.capturedCodes[this.size] = capturedPiece != null ? capturedPiece.getCode() : 0;
+            this.size += 1;
+        }
+
+        /**
+         * Removes the most recent entry
+         */
+        private void pop() {
+            this.size -= 1;
+            this.movedPieces[this.size] = null;
+            this.capturedPieces[this.size] = null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess.model;
+
+import java.util.Random;
+
+import chess.model.piece.Piece;
+import chess.model.piece.PieceColor;
+import chess.model.piece.PieceId;
+
+/**
+ * Random keys for incremental position hashing
+ * 
+ * Each combination of castling rights has its own key, so that castling rights
+ * are part of the hash.
+ * 
+ * https://www.chessprogramming.org/Zobrist_Hashing
+ */
+public class Zobrist {
+    /** Number of squares covered by the keys */
+    private static final int SQUARES = 64;
+
+    /** Keys by [color][piece][square] */
+    private static final long[][][] pieceKeys;
+
+    /** Keys by castling rights; no rights hash as zero */
+    private static final long[] castlingKeys;
+
+    /** Key toggled when black is to move */
+    private static final long sideKey;
+
+    static {
+        // Use a fixed seed so hash keys are reproducible between runs
+        Random random = new Random(0x5EED);
+        pieceKeys = new long[PieceColor.values().length][PieceId.values().length][SQUARES];
+        for (long[][] colorKeys : pieceKeys) {
+            for (long[] idKeys : colorKeys) {
+                for (int i = 0; i < SQUARES; i++) {
+                    idKeys[i] = random.nextLong();
+                }
+            }
+        }
+        sideKey = random.nextLong();
+        castlingKeys = new long[Board.ALL_CASTLING_RIGHTS + 1];
+        for (int i = 1; i < castlingKeys.length; i++) {
+            castlingKeys[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * Returns the key of the specified piece on the square with the specified
+     * index
+     */
+    public static long getKey(Piece piece, int square) {
+        return getKey(piece.getColor(), piece.getId(), square);
+    }
+
+    /**
+     * Returns the key of a piece on the square with the specified index
+     */
+    public static long getKey(PieceColor color, PieceId id, int square) {
+        return pieceKeys[color.ordinal()][id.ordinal()][square];
+    }
+
+    /**
+     * Returns the key of the specified castling rights
+     */
+    public static long getCastlingKey(int castlingRights) {
+        return castlingKeys[castlingRights];
+    }
+
+    /**
+     * Returns the key toggled when black is to move
+     */
+    public static long getSideKey() {
+        return sideKey;
+    }
+}
@@ -0,0 +1,418 @@
+package chess.model.engine;
+
+import java.util.List;
+
+import chess.model.Game;
+import chess.model.Player;
+import chess.model.Position;
+import chess.model.move.Move;
+
+/**
+ * Chess engine searching with the alpha-beta search core shared by the
+ * minimax engines: transposition table cutoffs, enhanced transposition
+ * cutoffs, internal iterative deepening and move ordering by the history
+ * heuristic
+ *
+ * The engines only differ in how they divide the search between threads.
+ *
+ * https://www.chessprogramming.org/Alpha-Beta
+ */
+public abstract class AlphaBetaEngine extends Engine {
+    /** Minimum remaining depth at which internal iterative deepening is used */
+    private int iidDepth = 3;
+    public void setIidDepth(int iidDepth) {
+        this.iidDepth = iidDepth;
+    }
+
+    /** Depth reduction of the internal iterative deepening search */
+    private int iidReduction = 2;
+    public void setIidReduction(int iidReduction) {
+        this.iidReduction = iidReduction;
+    }
+
+    /** Minimum remaining depth at which enhanced transposition cutoffs are tried */
+    private int etcDepth = 2;
+    public void setEtcDepth(int etcDepth) {
+        this.etcDepth = etcDepth;
+    }
+
+    /** Per-thread search state, which survives between searches on the pooled threads */
+    private final ThreadLocal<SearchState> searchStates = ThreadLocal.withInitial(SearchState::new);
+
+    /** Identifies the current game, so search state from earlier games is discarded */
+    private long gameId = 0;
+
+    /** Identifies the current search, so search state can be aged between searches */
+    private long searchId = 0;
+
+    /**
+     * AlphaBetaEngine constructor
+     */
+    public AlphaBetaEngine(int threadCount) {
+        super(threadCount);
+    }
+
+    @Override
+    /**
+     * Notifies the engine that a new game has started, so the search states
+     * also forget their history scores and move buffers before the next search
+     */
+    public void newGame() {
+        super.newGame();
+        this.gameId += 1;
+    }
+
+    /**
+     * Prepares the engine's workers and transposition table for a new search
+     */
+    protected void newSearch() {
+        this.searchId += 1;
+        this.transpositionTable.newSearch();
+    }
+
+    /**
+     * Common search state and algorithm shared by the engines' workers
+     */
+    abstract class SearchWorker {
+        /** Node type - principal variation node, searched with an open window */
+        protected static final int PV_NODE = 0;
+
+        /** Node type - expected to fail high */
+        protected static final int CUT_NODE = 1;
+
+        /** Node type - expected to fail low, all moves searched */
+        protected static final int ALL_NODE = 2;
+
+        /** This worker's game instance */
+        protected Game game;
+
+        /** The side to move at the root, whose perspective positions are scored from */
+        protected final Player player;
+
+        /** The calling thread's search state */
+        protected SearchState state;
+
+        /** Distance from the position this worker started searching from */
+        protected int ply;
+
+        /** The number of moves tested */
+        public long moveCount;
+
+        /** The greatest distance from the root reached */
+        public int selDepth;
+
+        /** Thread-safe transposition table to avoid searching repeat boards */
+        protected TranspositionTable transpositionTable;
+
+        /** The number of hashmap hits */
+        public long hashMapHits;
+
+        /** The number of child positions probed for enhanced transposition cutoffs */
+        public long etcProbes;
+
+        /** The number of enhanced transposition cutoffs */
+        public long etcCutoffs;
+
+        /**
+         * SearchWorker constructor
+         */
+        public SearchWorker(Position position, TranspositionTable transpositionTable) {
+            this(position, true, transpositionTable);
+        }
+
+        /**
+         * SearchWorker constructor, for a worker starting below the root, where the
+         * side to move may be the root player's opponent
+         */
+        public SearchWorker(Position position, boolean isMaximizingPlayer, TranspositionTable transpositionTable) {
+            // Materialize the snapshot so each worker has its own instance to manipulate
+            this.game = position.toGame();
+            this.player = isMaximizingPlayer ? this.game.getActivePlayer() : this.game.getActivePlayer().getOpponent();
+            this.moveCount = 0;
+            this.transpositionTable = transpositionTable;
+            this.hashMapHits = 0;
+        }
+
+        /**
+         * Attaches the calling thread's search state to this worker
+         */
+        protected void attachState() {
+            this.attachState(searchStates.get());
+        }
+
+        /**
+         * Attaches the specified search state, which no other worker may be using,
+         * to this worker
+         */
+        protected void attachState(SearchState state) {
+            this.state = state;
+            this.state.startSearch(gameId, searchId);
+            this.ply = 0;
+        }
+
+        /**
+         * Performs the minimax algorithm to determine a move's value
+         */
+        protected double minimax(int depth, boolean isMaximizingPlayer, double alpha, double beta, int nodeType) {
+            // The search has been abandoned; the caller discards this value
+            if (this.isAborted()) {
+                return 0;
+            }
+            if (this.ply > this.selDepth) {
+                this.selDepth = this.ply;
+            }
+            this.state.clearPv(this.ply);
+
+            // Repeated and rule-drawn positions are draws, whatever lies below them
+            if (this.game.isRepetition() || this.game.isDrawByRule()) {
+                return 0;
+            }
+
+            // Narrow the window with the best root score proven by other workers,
+            // keeping it non-empty so returned values remain valid bounds
+            double alphaFloor = this.getAlphaFloor();
+            if (alphaFloor > alpha) {
+                alpha = Math.min(alphaFloor, Math.nextDown(beta));
+            }
+
+            // Check the transposition table for this board
+            long key = this.game.getHashKey();
+            int hashMove = TranspositionTable.NO_MOVE;
+            TranspositionEntry entry = this.transpositionTable.probe(key);
+            if (entry != null) {
+                if (entry.depth >= depth && entry.isCutoff(alpha, beta)) {
+                    this.hashMapHits += 1;
+                    return entry.value;
+                }
+                hashMove = entry.move;
+            }
+
+            // Base case
+            if (depth == 0) {
+                double value = -BoardEvaluator.evaluate(this.player, this.game.getBoard());
+                this.transpositionTable.store(key, 0, value, TranspositionEntry.EXACT, TranspositionTable.NO_MOVE);
+                return value;
+            }
+
+            List<Move> moves = this.state.getMoveBuffer(this.ply);
+            this.game.getValidMoves(this.game.getActivePlayer(), moves);
+
+            // Enhanced transposition cutoffs: a child already in the table may refute
+            // this node without searching anything
+            if (depth >= etcDepth) {
+                for (Move move : moves) {
+                    this.etcProbes += 1;
+                    TranspositionEntry child = this.transpositionTable.probe(move.getHashKey(this.game));
+                    if (child == null || child.depth < depth - 1) {
+                        continue;
+                    }
+                    if (isMaximizingPlayer && child.bound != TranspositionEntry.UPPER && child.value >= beta) {
+                        this.etcCutoffs += 1;
+                        this.transpositionTable.store(key, depth, child.value, TranspositionEntry.LOWER,
+                                TranspositionTable.encodeMove(move));
+                        return child.value;
+                    }
+                    if (!isMaximizingPlayer && child.bound != TranspositionEntry.LOWER && child.value <= alpha) {
+                        this.etcCutoffs += 1;
+                        this.transpositionTable.store(key, depth, child.value, TranspositionEntry.UPPER,
+                                TranspositionTable.encodeMove(move));
+                        return child.value;
+                    }
+                }
+            }
+
+            // Internal iterative deepening: without a stored best move, run a reduced
+            // search so the most promising move is tried first
+            if (hashMove == TranspositionTable.NO_MOVE && nodeType != ALL_NODE && depth >= iidDepth) {
+                minimax(Math.max(0, depth - iidReduction), isMaximizingPlayer, alpha, beta, nodeType);
+                entry = this.transpositionTable.probe(key);
+                if (entry != null) {
+                    hashMove = entry.move;
+                }
+
+                // The reduced search reused this ply's move buffer
+                moves = this.state.getMoveBuffer(this.ply);
+                this.game.getValidMoves(this.game.getActivePlayer(), moves);
+            }
+
+            orderMoves(moves, hashMove);
+
+            double alphaOriginal = alpha;
+            double betaOriginal = beta;
+            double bestValue = isMaximizingPlayer ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+            int bestMove = TranspositionTable.NO_MOVE;
+            for (int i = 0; i < moves.size(); i++) {
+                Move move = moves.get(i);
+                int childType = nodeType == CUT_NODE ? ALL_NODE : (nodeType == PV_NODE && i == 0 ? PV_NODE : CUT_NODE);
+
+                // Once the eldest brother has been searched, the younger ones may be shared
+                // with other threads
+                if (i == 1) {
+                    SplitPoint split = this.split(moves, depth, isMaximizingPlayer, alpha, beta, bestValue, bestMove,
+                            childType);
+                    if (split != null) {
+                        if (this.isAborted()) {
+                            return 0;
+                        }
+
+                        // The other threads' lines aren't known here, so the line ends with the move
+                        if (split.getBestMove() != bestMove) {
+                            bestMove = split.getBestMove();
+                            this.state.clearPv(this.ply + 1);
+                            this.state.updatePv(this.ply, bestMove);
+                        }
+                        bestValue = split.getBestValue();
+                        break;
+                    }
+                }
+
+                this.game.executeMove(move, false);
+                this.game.endTurn(false);
+                this.ply += 1;
+                double value = minimax(depth - 1, !isMaximizingPlayer, alpha, beta, childType);
+                this.ply -= 1;
+                this.game.undoMove(move, false);
+                this.game.endTurn(false);
+                this.moveCount += 1;
+
+                // Don't let an abandoned search pollute the transposition table
+                if (this.isAborted()) {
+                    return 0;
+                }
+
+                if (isMaximizingPlayer) {
+                    if (bestMove == TranspositionTable.NO_MOVE || value > bestValue) {
+                        bestValue = value;
+                        bestMove = TranspositionTable.encodeMove(move);
+                        this.state.updatePv(this.ply, bestMove);
+                    }
+                    alpha = Math.max(alpha, bestValue);
+                } else {
+                    if (bestMove == TranspositionTable.NO_MOVE || value < bestValue) {
+                        bestValue = value;
+                        bestMove = TranspositionTable.encodeMove(move);
+                        this.state.updatePv(this.ply, bestMove);
+                    }
+                    beta = Math.min(beta, bestValue);
+                }
+
+                // Alpha-Beta pruning, remembering quiet moves that cause cutoffs
+                if (beta <= alpha) {
+                    if (move.toPiece == null) {
+                        this.state.addHistory(TranspositionTable.encodeMove(move), depth);
+                    }
+                    break;
+                }
+            }
+
+            // Store the result along with the bound it represents
+            int bound = TranspositionEntry.EXACT;
+            if (bestValue <= alphaOriginal) {
+                bound = TranspositionEntry.UPPER;
+            } else if (bestValue >= betaOriginal) {
+                bound = TranspositionEntry.LOWER;
+            }
+            this.transpositionTable.store(key, depth, bestValue, bound, bestMove);
+            return bestValue;
+        }
+
+        /**
+         * Returns a lower bound for alpha at every node of this worker's search
+         */
+        protected double getAlphaFloor() {
+            return Double.NEGATIVE_INFINITY;
+        }
+
+        /**
+         * Returns whether the value being searched is no longer needed, so the
+         * search should unwind
+         */
+        protected boolean isAborted() {
+            return stopSearch;
+        }
+
+        /**
+         * Searches the moves after the eldest one of a node together with other
+         * threads, if this worker splits nodes at the specified depth, returning
+         * the split point holding the best of the node's values; returns null if
+         * the caller should search the moves itself
+         */
+        protected SplitPoint split(List<Move> moves, int depth, boolean isMaximizingPlayer, double alpha, double beta,
+                double bestValue, int bestMove, int childType) {
+            return null;
+        }
+
+        /**
+         * Returns whether every root move other than the specified best move is
+         * proven no better than the bound by a null-window search
+         */
+        protected boolean isEasyMove(int bestMove, int depth, double bound) {
+            // Nothing beats a forced mate, and every move loses against one
+            if (bound == Double.POSITIVE_INFINITY) {
+                return true;
+            } else if (bound == Double.NEGATIVE_INFINITY) {
+                return false;
+            }
+
+            int ply = this.ply;
+            for (Move move : this.game.getValidMoves(this.game.getActivePlayer())) {
+                if (TranspositionTable.isMove(bestMove, move)) {
+                    continue;
+                }
+                this.game.executeMove(move, false);
+                this.game.endTurn(false);
+                this.ply = ply + 1;
+                double value = minimax(depth, false, bound, Math.nextUp(bound), CUT_NODE);
+                this.ply = ply;
+                this.game.undoMove(move, false);
+                this.game.endTurn(false);
+                this.moveCount += 1;
+                if (this.isAborted() || value > bound) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Orders moves for searching: the stored best move first, then captures of the
+         * most valuable pieces, then quiet moves by history score
+         */
+        protected void orderMoves(List<Move> moves, int hashMove) {
+            // Insertion sort, keeping generation order between equal scores
+            for (int i = 1; i < moves.size(); i++) {
+                Move move = moves.get(i);
+                int score = this.getOrderingScore(move);
+                int j = i - 1;
+                while (j >= 0 && this.getOrderingScore(moves.get(j)) < score) {
+                    moves.set(j + 1, moves.get(j));
+                    j -= 1;
+                }
+                moves.set(j + 1, move);
+            }
+            moveToFront(moves, hashMove);
+        }
+
+        /**
+         * Returns a move's ordering score; higher scores are searched first
+         */
+        private int getOrderingScore(Move move) {
+            if (move.toPiece != null) {
+                return Integer.MAX_VALUE / 2 + move.toPiece.getId().getValue();
+            }
+            return this.state.getHistory(TranspositionTable.encodeMove(move));
+        }
+
+        /**
+         * Moves the stored best move, if any, to the front of the list
+         */
+        protected void moveToFront(List<Move> moves, int hashMove) {
+            for (int i = 0; i < moves.size(); i++) {
+                if (TranspositionTable.isMove(hashMove, moves.get(i))) {
+                    moves.add(0, moves.remove(i));
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -115,7 +115,7 @@ public class BoardEvaluator {
         Map<PieceId, double[][]> LUT = enginePlayer.getColor() == PieceColor.WHITE ? whiteLUT : blackLUT;
         for (int i = 0; i < board.getRows(); i++) {
             for (int j = 0; j < board.getColumns(); j++) {
-                Piece piece = board.getSquare(i, j).getPiece();
+                Piece piece = board.getPiece(i, j);
                 if (piece != null) {
                     PieceId id = piece.getId();
                     double value = id.getValue() + LUT.get(id)[i][j];
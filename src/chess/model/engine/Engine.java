@@ -1,37 +1,138 @@
 package chess.model.engine;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import chess.model.Game;
+import chess.model.GameClock;
 import chess.model.Player;
+import chess.model.Position;
 import chess.model.move.Move;
+import chess.model.piece.PieceColor;
 
-public abstract class Engine {
+public abstract class Engine implements AutoCloseable {
     protected Game game;
     public void setGame(Game game) {
         this.game = game;
     }
 
+    /** The player this engine plays for; each search takes its side from the position searched */
     protected Player player;
     public void setPlayer(Player player) {
         this.player = player;
     }
 
+    /** How many moves ahead to look */
+    protected int depth = 3;
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
     /** Maximum number of worker threads */
     protected int threadCount;
     public void setThreadCount(int threadCount) {
         this.threadCount = threadCount;
     }
 
+    /** Transposition table, kept across moves and games */
+    protected final TranspositionTable transpositionTable = new TranspositionTable();
+
+    /** The side whose perspective the stored values are from, or null before the first search */
+    private PieceColor tableColor;
+
+    /** Clear the transposition table when a new game starts? */
+    private boolean clearHashOnNewGame = false;
+    public void setClearHashOnNewGame(boolean clearHashOnNewGame) {
+        this.clearHashOnNewGame = clearHashOnNewGame;
+    }
+
+    /** Keep searching the expected reply while the opponent is thinking? */
+    private boolean ponder = false;
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    /** Number of runs answered by a ponder search that predicted the opponent's move */
+    private long ponderHits = 0;
+    public long getPonderHits() {
+        return this.ponderHits;
+    }
+
+    /** The pondered game, its generation, and the hash key of the expected position */
+    private Game ponderGame;
+    private int ponderGeneration;
+    private long ponderKey;
+
+    /** The ponder search's run and result */
+    private int ponderRunId;
+    private CompletableFuture<SearchResult> ponderFuture;
+
+    /** Score margin by which a best move must beat every other move to be played early */
+    protected double easyMoveMargin = 20.0;
+    public void setEasyMoveMargin(double easyMoveMargin) {
+        this.easyMoveMargin = easyMoveMargin;
+    }
+
+    /** Number of iterations a move must stay best before it is checked as an easy move */
+    protected int easyMoveIterations = 3;
+    public void setEasyMoveIterations(int easyMoveIterations) {
+        this.easyMoveIterations = easyMoveIterations;
+    }
+
     /** Is the engine thread running? */
     private volatile boolean isRunning = false;
     public boolean getIsRunning() {
         return this.isRunning;
     }
 
-    /** Classes subscribed to this engine's events */
-    private List<EngineListener> listeners = new ArrayList<EngineListener>();
+    /** Identifies the latest run, so a stale run doesn't clear the running flag */
+    private volatile int runId = 0;
+
+    /** Identifies the run whose search is in progress, so late stop requests are ignored */
+    private int searchRunId = 0;
+
+    /** The latest run when stop() was called; runs up to it that are still queued start stopped */
+    private int stoppedRunId = 0;
+
+    /** Signals the current search to stop and return the best move found so far */
+    protected volatile boolean stopSearch = false;
+
+    /** Runs this engine's searches off the caller's thread, reused across moves */
+    private ExecutorService runner;
+
+    /** When the current search started, in nanoseconds */
+    private volatile long searchStartTime;
+
+    /** Allocates time for the current search, or null if it is untimed */
+    private volatile TimeManager timeManager;
+
+    /** Streams search info to subscribers off the search threads */
+    private final SearchInfoPublisher searchInfoPublisher = new SearchInfoPublisher(ForkJoinPool.commonPool(),
+            SearchInfoPublisher.DEFAULT_BUFFER_SIZE);
+    public Flow.Publisher<SearchInfo> getSearchInfoPublisher() {
+        return this.searchInfoPublisher;
+    }
+
+    /** Classes subscribed to this engine's events, which are notified on the reporter thread */
+    private final List<EngineListener> listeners = new CopyOnWriteArrayList<EngineListener>();
+
+    /** Runs listener notifications and builds published lines, in order, off the search threads */
+    private final ExecutorService reporter = Executors.newSingleThreadExecutor(createThreadFactory("engine-info"));
+
+    /** Snapshot of the position being searched, from which published lines are replayed */
+    private volatile Position rootPosition;
 
     /**
      * Engine constructor
@@ -55,37 +156,463 @@ public abstract class Engine {
     }
 
     /**
-     * Selects a move based on the current game state
+     * Searches the specified game's position for the best move of the side to
+     * move, scoring positions from that side's perspective
      */
-    public abstract Move selectMove();
+    protected abstract SearchResult search(Game game, SearchLimits limits);
+
+    /**
+     * Searches a snapshot of the specified game's position for the side to
+     * move, returning at once if it has a single legal move
+     *
+     * Only the snapshot is searched, so the game can change while the search
+     * runs.
+     */
+    private SearchResult searchPosition(Game game, SearchLimits limits) {
+        this.rootPosition = game.getPosition();
+        Game position = this.rootPosition.toGame();
+        Player player = position.getActivePlayer();
+
+        // Stored values are from the searching side's perspective, so they can't be
+        // reused when the other side searches
+        synchronized (this) {
+            if (this.tableColor != null && this.tableColor != player.getColor()) {
+                this.transpositionTable.clear();
+            }
+            this.tableColor = player.getColor();
+        }
+
+        List<Move> moves = position.getValidMoves(player);
+        if (moves.size() != 1) {
+            return this.search(position, limits);
+        }
+
+        // The forced move isn't searched, so report its static evaluation
+        Move move = moves.get(0);
+        List<Move> pv = new ArrayList<Move>();
+        pv.add(move.copy());
+        position.executeMove(move, false);
+        double score = -BoardEvaluator.evaluate(player, position.getBoard());
+        return new SearchResult(pv.get(0), score, 0, pv, 0);
+    }
+
+    /**
+     * Selects a move based on the current game state, blocking until the search
+     * completes
+     */
+    public Move selectMove() {
+        int runId;
+        synchronized (this) {
+            runId = ++this.runId;
+        }
+        SearchLimits limits = new SearchLimits(this.depth);
+        this.startSearch(runId, limits);
+        return this.searchPosition(this.game, limits).getMove();
+    }
 
     /**
-     * Runs the engine on a new thread
+     * Searches a snapshot of the specified position on the engine's thread; the
+     * engine plays the side to move
+     *
+     * Cancelling the future, or completing it by other means such as
+     * orTimeout(), stops the search. A move time in the limits instead stops the
+     * search and completes the future with the best move found so far.
      */
-    public void run() {
-        Engine engine = this;
-        class EngineThread extends Thread {
-            @Override
-            public void run() {
-                engine.isRunning = true;
-                Move move = engine.selectMove();
-                engine.isRunning = false;
-                for (EngineListener listener : engine.listeners) {
-                    listener.engineMoveSelected(move);
+    public synchronized CompletableFuture<SearchResult> selectMoveAsync(Game position, SearchLimits limits) {
+        Game game = position.getPosition().toGame();
+        int runId = ++this.runId;
+        CompletableFuture<SearchResult> future = new CompletableFuture<SearchResult>();
+        future.whenComplete((result, ex) -> {
+            if (ex != null) {
+                this.stop(runId);
+            }
+        });
+        this.getRunner().execute(() -> {
+            // Cancelled before the search started
+            if (future.isDone()) {
+                return;
+            }
+            this.startSearch(runId, limits);
+            try {
+                future.complete(this.searchPosition(game, limits));
+            } catch (RuntimeException e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Notifies the engine that a new game has started, clearing the
+     * transposition table if configured to
+     */
+    public void newGame() {
+        if (this.clearHashOnNewGame) {
+            this.transpositionTable.clear();
+        }
+    }
+
+    /**
+     * Runs the engine on its own thread
+     *
+     * The selected move is discarded if the game has moved to a new generation
+     * (new game, undo or redo) by the time the search finishes.
+     */
+    public synchronized void run() {
+        Game game = this.game;
+        int generation = game.getGeneration();
+        int runId = ++this.runId;
+        SearchLimits limits = this.getLimits(game);
+        this.isRunning = true;
+
+        // The opponent played the expected reply, so the ponder search becomes this run's
+        // search, timed from now
+        CompletableFuture<SearchResult> pondered = this.takePonderResult(game, generation);
+        if (pondered != null) {
+            this.ponderHits += 1;
+            this.startTimer(this.ponderRunId, limits);
+            pondered.thenAcceptAsync(result -> this.finishRun(game, generation, runId, result), this.getRunner());
+            return;
+        }
+
+        this.getRunner().execute(() -> {
+            // Skip searches queued for a game that has since changed
+            SearchResult result = null;
+            if (game == this.game && game.getGeneration() == generation) {
+                this.startSearch(runId, limits);
+                result = this.searchPosition(game, limits);
+            }
+            this.finishRun(game, generation, runId, result);
+        });
+    }
+
+    /**
+     * Delivers a run's result to the listeners if the game hasn't changed, then
+     * starts pondering
+     */
+    private void finishRun(Game game, int generation, int runId, SearchResult result) {
+        boolean isCurrent = result != null && game == this.game && game.getGeneration() == generation;
+        if (runId == this.runId) {
+            this.isRunning = false;
+        }
+        if (!isCurrent) {
+            return;
+        }
+        for (EngineListener listener : this.listeners) {
+            listener.engineMoveSelected(result.getMove());
+        }
+        if (this.ponder) {
+            this.startPonder(game, result);
+        }
+    }
+
+    /**
+     * Starts searching the position after the opponent's expected reply, taken
+     * from the principal variation of the engine's last move
+     *
+     * https://www.chessprogramming.org/Pondering
+     */
+    private synchronized void startPonder(Game game, SearchResult result) {
+        // Engine opponents are busy with their own search
+        List<Move> pv = result.getPrincipalVariation();
+        if (pv.size() < 2 || game.getActivePlayer().getEngine() != null) {
+            return;
+        }
+
+        // Generate the reply on the copy the ponder search will play it on
+        Game position = game.getPosition().toGame();
+        int reply = TranspositionTable.encodeMove(pv.get(1));
+        Move expected = null;
+        for (Move move : position.getValidMoves(position.getActivePlayer())) {
+            if (TranspositionTable.isMove(reply, move)) {
+                expected = move;
+                break;
+            }
+        }
+        if (expected == null) {
+            return;
+        }
+        position.executeMove(expected, false);
+        position.endTurn(false);
+        this.ponderGame = game;
+        this.ponderGeneration = game.getGeneration();
+        this.ponderKey = position.getHashKey();
+
+        // Ponder without a time limit until the opponent moves
+        int runId = ++this.runId;
+        SearchLimits limits = new SearchLimits(game.getClock() != null ? SearchLimits.MAX_DEPTH : this.depth);
+        CompletableFuture<SearchResult> future = new CompletableFuture<SearchResult>();
+        this.ponderRunId = runId;
+        this.ponderFuture = future;
+        this.getRunner().execute(() -> {
+            // Skip the search if the opponent has already moved
+            synchronized (this) {
+                if (future.isDone()) {
+                    return;
                 }
+                this.startSearch(runId, limits);
             }
+            future.complete(this.searchPosition(position, limits));
+        });
+    }
+
+    /**
+     * Returns the ponder search's result if the game reached the pondered
+     * position; otherwise stops the ponder search, keeping what it stored in the
+     * transposition table
+     */
+    private CompletableFuture<SearchResult> takePonderResult(Game game, int generation) {
+        CompletableFuture<SearchResult> future = this.ponderFuture;
+        this.ponderFuture = null;
+        if (future == null) {
+            return null;
         }
+        if (game == this.ponderGame && generation == this.ponderGeneration && game.getHashKey() == this.ponderKey) {
+            return future;
+        }
+        future.cancel(false);
+        this.stop(this.ponderRunId);
+        return null;
+    }
 
-        EngineThread thread = new EngineThread();
-        thread.start();
+    /**
+     * Stops the current search, if any, and any search still queued; workers
+     * abort cooperatively and the search returns the best move found so far
+     */
+    public synchronized void stop() {
+        this.stoppedRunId = this.runId;
+        this.stopSearch = true;
+    }
+
+    /**
+     * Stops the specified run's search, unless another search has started since
+     */
+    private synchronized void stop(int runId) {
+        if (this.searchRunId == runId) {
+            this.stopSearch = true;
+        }
+    }
+
+    /**
+     * Marks the specified run's search as started, clearing any stop meant for
+     * an earlier run
+     */
+    private synchronized void startSearch(int runId, SearchLimits limits) {
+        this.searchRunId = runId;
+        this.stopSearch = runId <= this.stoppedRunId;
+        this.searchStartTime = System.nanoTime();
+        this.startTimer(runId, limits);
+    }
+
+    /**
+     * Allocates time for the specified run's search and schedules it to stop at
+     * the hard limit
+     */
+    private synchronized void startTimer(int runId, SearchLimits limits) {
+        TimeManager timeManager = null;
+        long hardLimit = limits.getMoveTime();
+        if (limits.isTimed()) {
+            timeManager = new TimeManager(limits.getRemainingTime(), limits.getIncrement(), limits.getMovesToGo());
+            hardLimit = hardLimit > 0 ? Math.min(hardLimit, timeManager.getHardLimit()) : timeManager.getHardLimit();
+        }
+        this.timeManager = timeManager;
+        if (hardLimit > 0) {
+            CompletableFuture.delayedExecutor(hardLimit, TimeUnit.MILLISECONDS).execute(() -> this.stop(runId));
+        }
+    }
+
+    /**
+     * Returns the limits for a search of the specified game for the side to
+     * move, which is timed if the game has a clock
+     */
+    private SearchLimits getLimits(Game game) {
+        GameClock clock = game.getClock();
+        if (clock == null) {
+            return new SearchLimits(this.depth);
+        }
+        SearchLimits limits = new SearchLimits(SearchLimits.MAX_DEPTH);
+        limits.setRemainingTime(Math.max(1, clock.getRemaining(game.getActivePlayer().getColor())));
+        limits.setIncrement(clock.getIncrement());
+        return limits;
+    }
+
+    /**
+     * Records a completed iteration with the time manager, returning whether a
+     * timed search should stop instead of starting another iteration
+     */
+    protected boolean isTimeUp(Move bestMove, double score) {
+        TimeManager timeManager = this.timeManager;
+        return timeManager != null && timeManager.iterationCompleted(TranspositionTable.encodeMove(bestMove), score);
+    }
+
+    /**
+     * Returns the engine's thread, creating it on first use
+     */
+    private synchronized ExecutorService getRunner() {
+        if (this.runner == null) {
+            this.runner = Executors.newSingleThreadExecutor(createThreadFactory("engine"));
+        }
+        return this.runner;
+    }
+
+    @Override
+    /**
+     * Stops this engine's threads; the engine can't be run afterwards
+     */
+    public synchronized void close() {
+        this.stop();
+        this.searchInfoPublisher.close();
+        this.reporter.shutdown();
+        if (this.runner != null) {
+            this.runner.shutdownNow();
+            this.runner = null;
+        }
+    }
+
+    /**
+     * Returns a factory creating named daemon threads, so idle engine threads
+     * never keep the application alive
+     */
+    protected static ThreadFactory createThreadFactory(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Returns the expected line of play after the specified move by following the
+     * best moves stored in the transposition table
+     */
+    protected List<Move> getPrincipalVariation(Game game, Move move, int maxLength) {
+        int[] line = move != null ? new int[] { TranspositionTable.encodeMove(move) } : new int[0];
+        return this.getPrincipalVariation(game, line, maxLength);
     }
 
     /**
-     * Reports progress towards selecting a move
+     * Returns the expected line of play made of the specified encoded moves,
+     * extended by following the best moves stored in the transposition table
+     */
+    protected List<Move> getPrincipalVariation(Game game, int[] line, int maxLength) {
+        return this.getPrincipalVariation(game.getPosition(), line, maxLength);
+    }
+
+    /**
+     * Returns the expected line of play from the specified position made of the
+     * specified encoded moves, extended by following the best moves stored in
+     * the transposition table
+     */
+    private List<Move> getPrincipalVariation(Position root, int[] line, int maxLength) {
+        List<Move> pv = new ArrayList<Move>();
+        if (line.length == 0) {
+            return pv;
+        }
+
+        // Replay the line on a new game, leaving the searched one untouched
+        Game position = root.toGame();
+        Set<Long> visited = new HashSet<Long>();
+        visited.add(position.getHashKey());
+        int encoded = line[0];
+        while (pv.size() < maxLength) {
+            Move next = null;
+            for (Move candidate : position.getValidMoves(position.getActivePlayer())) {
+                if (TranspositionTable.isMove(encoded, candidate)) {
+                    next = candidate;
+                    break;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            pv.add(next.copy());
+            position.executeMove(next, false);
+            position.endTurn(false);
+
+            // Stored best moves can lead back to an earlier position of the line
+            if (!visited.add(position.getHashKey())) {
+                break;
+            }
+
+            // Follow the searched line, then the stored best moves
+            if (pv.size() < line.length) {
+                encoded = line[pv.size()];
+            } else {
+                TranspositionEntry entry = this.transpositionTable.probe(position.getHashKey());
+                if (entry == null) {
+                    break;
+                }
+                encoded = entry.move;
+            }
+        }
+        return pv;
+    }
+
+    /**
+     * Publishes a snapshot of the current search to search info subscribers,
+     * without blocking
+     */
+    protected void publishSearchInfo(Move bestMove, int depth, int selDepth, double score, long nodes) {
+        int[] line = new int[] { TranspositionTable.encodeMove(bestMove) };
+        this.publishSearchInfo(line, depth, selDepth, 1, score, nodes);
+    }
+
+    /**
+     * Publishes one of the best lines of the current search, given as encoded
+     * moves from the searched position, to search info subscribers; the best
+     * line is also reported to engine listeners
+     *
+     * The search thread only hands over a copy of the line: replaying it into
+     * moves and notifying the listeners happen on the reporter thread, so a
+     * slow listener can't stall the search.
+     */
+    protected void publishSearchInfo(int[] line, int depth, int selDepth, int multiPv, double score, long nodes) {
+        // Skip following the principal variation when nobody is listening
+        boolean notify = multiPv == 1 && !this.listeners.isEmpty();
+        if (!notify && !this.searchInfoPublisher.hasSubscribers()) {
+            return;
+        }
+        Position root = this.rootPosition;
+        int[] moves = line.clone();
+        long nodesPerSecond = nodes * 1000000000L / Math.max(1, System.nanoTime() - this.searchStartTime);
+        this.report(() -> {
+            List<Move> pv = this.getPrincipalVariation(root, moves, depth + 1);
+            if (notify) {
+                for (EngineListener listener : this.listeners) {
+                    listener.enginePrincipalVariationUpdated(depth, score, pv);
+                }
+            }
+            if (this.searchInfoPublisher.hasSubscribers()) {
+                this.searchInfoPublisher.publish(new SearchInfo(depth, selDepth, multiPv, score, pv, nodes,
+                        nodesPerSecond, this.transpositionTable.getHashFull()));
+            }
+        });
+    }
+
+    /**
+     * Reports progress towards selecting a move to engine listeners, on the
+     * reporter thread
      */
     protected void setProgress(double progress, long moveCount, long hashMapHits) {
-        for (EngineListener listener : this.listeners) {
-            listener.engineProgressUpdated(progress, moveCount, hashMapHits);
+        if (this.listeners.isEmpty()) {
+            return;
+        }
+        this.report(() -> {
+            for (EngineListener listener : this.listeners) {
+                listener.engineProgressUpdated(progress, moveCount, hashMapHits);
+            }
+        });
+    }
+
+    /**
+     * Queues a report on the reporter thread
+     */
+    private void report(Runnable report) {
+        try {
+            this.reporter.execute(report);
+        } catch (RejectedExecutionException e) {
+            // The engine was closed while searching, so nobody is waiting for reports
         }
     }
 }
@@ -1,5 +1,7 @@
 package chess.model.engine;
 
+import java.util.List;
+
 import chess.model.move.Move;
 
 /**
@@ -16,4 +18,10 @@ public interface EngineListener {
      * Invoked when the engine has made progress towards selecting a move
      */
     void engineProgressUpdated(double progress, long moveCount, long hashMapHits);
+
+    /**
+     * Invoked when the engine has completed a search iteration, with the expected
+     * line of play starting with its best move
+     */
+    void enginePrincipalVariationUpdated(int depth, double score, List<Move> principalVariation);
 }
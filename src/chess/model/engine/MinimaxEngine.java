@@ -2,16 +2,20 @@ package chess.model.engine;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 
 import chess.model.Game;
+import chess.model.Position;
 import chess.model.move.Move;
 
 /**
@@ -20,108 +24,346 @@ import chess.model.move.Move;
  * https://www.chessprogramming.org/Minimax
  * https://github.com/lhartikk/simple-chess-ai
  */
-public class MinimaxEngine extends Engine {
-    /** How many moves ahead to look */
-    private int depth = 3;
-    public void setDepth(int depth) {
-        this.depth = depth;
+public class MinimaxEngine extends AlphaBetaEngine {
+    /**
+     * Search all root moves with every thread (Lazy SMP) instead of splitting the
+     * root moves between threads
+     */
+    private boolean lazySmp = false;
+    public void setLazySmp(boolean lazySmp) {
+        this.lazySmp = lazySmp;
+    }
+
+    /**
+     * Search root moves with a null window around the shared root alpha first, and
+     * only re-search the moves that improve it with a full window
+     */
+    private boolean rootScout = true;
+    public void setRootScout(boolean rootScout) {
+        this.rootScout = rootScout;
+    }
+
+    /**
+     * Number of best root moves to search with exact scores and report as
+     * separate lines; each line is found by a pass over the root moves not yet
+     * reported in the iteration (root-split search only)
+     */
+    private int multiPv = 1;
+    public void setMultiPv(int multiPv) {
+        this.multiPv = multiPv;
+    }
+
+    /**
+     * Shuffle the root moves, so equally good moves aren't always chosen in the
+     * same order; off for reproducible searches (root-split search only)
+     */
+    private boolean shuffleRootMoves = true;
+    public void setShuffleRootMoves(boolean shuffleRootMoves) {
+        this.shuffleRootMoves = shuffleRootMoves;
+    }
+
+    /** Number of root moves re-searched after improving the shared root alpha in the last search */
+    private long rootResearches;
+    public long getRootResearches() {
+        return this.rootResearches;
+    }
+
+    /** Number of child positions probed for enhanced transposition cutoffs by the last search */
+    private long etcProbes;
+    public long getEtcProbes() {
+        return this.etcProbes;
     }
 
-    /** Thread-safe hashmap to avoid evaluating repeat boards */
-    private Map<Integer, Double> hashMap = new ConcurrentHashMap<Integer, Double>();
+    /** Number of enhanced transposition cutoffs found by the last search */
+    private long etcCutoffs;
+    public long getEtcCutoffs() {
+        return this.etcCutoffs;
+    }
+
+    /** Best exact root score proven so far by any root worker (encoded double) */
+    private final AtomicLong rootAlpha = new AtomicLong(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+
+    /** Worker thread pool, reused across moves and games */
+    private final ThreadPoolExecutor executor;
 
     /**
      * MinimaxEngine constructor
      */
     public MinimaxEngine(int threadCount) {
         super(threadCount);
+        this.executor = new ThreadPoolExecutor(threadCount, threadCount, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), createThreadFactory("minimax-worker"));
     }
 
     @Override
     /**
-     * Selects a move based on the current game state
+     * Sets the maximum number of worker threads, resizing the worker pool
      */
-    public Move selectMove() {
-        // Get all available moves
-        Game game = this.game.copy();
-        List<Move> moves = game.getValidMoves(this.player);
-        Collections.shuffle(moves);
+    public void setThreadCount(int threadCount) {
+        super.setThreadCount(threadCount);
 
-        // Create a thread pool
-        Executor executor = Executors.newFixedThreadPool(this.threadCount);
-        CompletionService<MinimaxEngineWorker> service = new ExecutorCompletionService<MinimaxEngineWorker>(executor);
+        // The maximum size can never be below the core size
+        if (threadCount > this.executor.getMaximumPoolSize()) {
+            this.executor.setMaximumPoolSize(threadCount);
+            this.executor.setCorePoolSize(threadCount);
+        } else {
+            this.executor.setCorePoolSize(threadCount);
+            this.executor.setMaximumPoolSize(threadCount);
+        }
+    }
+
+    @Override
+    /**
+     * Stops this engine's threads; the engine can't be run afterwards
+     */
+    public void close() {
+        super.close();
+        this.executor.shutdownNow();
+    }
 
-        // Determine the value of each move using the thread pool
-        for (Move move : moves) {
-            service.submit(new MinimaxEngineWorker(game, move, this.hashMap));
+    @Override
+    /**
+     * Searches the specified game's position for the best move of the side to
+     * move
+     */
+    protected SearchResult search(Game position, SearchLimits limits) {
+        this.newSearch();
+        if (this.lazySmp) {
+            return this.searchLazySmp(position, limits);
         }
 
-        Move bestMove = null;
+        // Workers materialize their own game from the snapshot
+        Position root = position.getPosition();
+        Game game = root.toGame();
+
+        // Get all available moves
+        List<Move> moves = game.getValidMoves(game.getActivePlayer());
+        if (this.shuffleRootMoves) {
+            Collections.shuffle(moves);
+        }
+        if (moves.isEmpty()) {
+            return new SearchResult(null, Double.NEGATIVE_INFINITY, 0, new ArrayList<Move>(), 0);
+        }
+
+        // Deepen one ply at a time, so a stopped search still has the best move of
+        // the last completed iteration
+        Move bestMove = moves.get(0);
+        int[] bestLine = new int[] { TranspositionTable.encodeMove(bestMove) };
         double bestMoveValue = Double.NEGATIVE_INFINITY;
-        int movesSize = moves.size();
+        int completedDepth = 0;
+        int stableIterations = 0;
+        int selDepth = 0;
         long moveCount = 0;
         long hashMapHits = 0;
-        for (int i = 0; i < movesSize; i++) {
-            try {
-                // Block until a worker thread finishes
-                MinimaxEngineWorker worker = service.take().get();
+        this.etcProbes = 0;
+        this.etcCutoffs = 0;
+        this.rootResearches = 0;
+        int depth = limits.getDepth();
+        int lines = Math.max(1, Math.min(this.multiPv, moves.size()));
+        for (int d = 1; d <= depth && !this.stopSearch; d++) {
+            // Search the previous iteration's lines first, in order; each pass moves the
+            // line it finds ahead of the moves still to be searched
+            for (int line = 0; line < lines && !this.stopSearch; line++) {
+                // Determine the value of each remaining move using the worker pool
+                this.rootAlpha.set(Double.doubleToLongBits(Double.NEGATIVE_INFINITY));
+                CompletionService<MinimaxEngineWorker> service = new ExecutorCompletionService<MinimaxEngineWorker>(
+                        this.executor);
+                for (int i = line; i < moves.size(); i++) {
+                    service.submit(new MinimaxEngineWorker(root, moves.get(i), i, d));
+                }
 
-                // Report progress
-                moveCount += worker.moveCount;
-                hashMapHits += worker.hashMapHits;
-                this.setProgress((double) i / movesSize, moveCount, hashMapHits);
+                Move lineMove = null;
+                int[] lineMoves = null;
+                int lineIndex = 0;
+                double lineValue = Double.NEGATIVE_INFINITY;
+                boolean lineIsExact = false;
+                int movesSize = moves.size();
+                for (int i = line; i < movesSize; i++) {
+                    try {
+                        // Block until a worker thread finishes
+                        MinimaxEngineWorker worker = service.take().get();
+
+                        // Report progress
+                        moveCount += worker.moveCount;
+                        hashMapHits += worker.hashMapHits;
+                        selDepth = Math.max(selDepth, worker.selDepth);
+                        this.etcProbes += worker.etcProbes;
+                        this.etcCutoffs += worker.etcCutoffs;
+                        this.rootResearches += worker.researches;
+                        this.setProgress((d - 1 + (line + (double) (i - line) / (movesSize - line)) / lines) / depth,
+                                moveCount, hashMapHits);
+
+                        // Update the best move (values that failed low against the shared root
+                        // alpha are only bounds: they never beat an exact value, and any exact
+                        // value replaces them)
+                        if (worker.isComplete && (lineMove == null
+                                || (worker.isExact && (!lineIsExact || worker.moveValue > lineValue)))) {
+                            lineMove = moves.get(worker.index);
+                            lineMoves = worker.line;
+                            lineIndex = worker.index;
+                            lineValue = worker.moveValue;
+                            lineIsExact = worker.isExact;
+                        }
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                    }
+                }
 
-                // Update the best move
-                if (bestMove == null || worker.moveValue >= bestMoveValue) {
-                    bestMove = worker.move;
-                    bestMoveValue = worker.moveValue;
+                // Discard incomplete passes
+                if (this.stopSearch || lineMove == null) {
+                    break;
                 }
+                moves.add(line, moves.remove(lineIndex));
+
+                // The first pass completes the iteration's best move
+                if (line == 0) {
+                    stableIterations = lineMove == bestMove ? stableIterations + 1 : 1;
+                    bestMove = lineMove;
+                    bestLine = lineMoves;
+                    bestMoveValue = lineValue;
+                    completedDepth = d;
+                }
+                this.publishSearchInfo(lineMoves, d, selDepth, line + 1, lineValue, moveCount);
+            }
+
+            if (this.stopSearch || completedDepth < d) {
+                break;
+            }
+            if (this.isTimeUp(bestMove, bestMoveValue)) {
+                break;
+            }
+
+            // Stop early once the best move has stayed best for several iterations and
+            // every other move is proven clearly worse at a reduced depth; analysis of
+            // several lines runs to the full depth
+            if (lines == 1 && d < depth && stableIterations >= this.easyMoveIterations) {
+                EasyMoveVerifier verifier = new EasyMoveVerifier(root);
+                boolean isEasy = verifier.verify(TranspositionTable.encodeMove(bestMove), d - 1,
+                        bestMoveValue - this.easyMoveMargin);
+                moveCount += verifier.moveCount;
+                if (isEasy) {
+                    break;
+                }
+
+                // Otherwise wait for more stable iterations before verifying again
+                stableIterations = 0;
+            }
+        }
+
+        return new SearchResult(bestMove.copy(), bestMoveValue, completedDepth,
+                this.getPrincipalVariation(game, bestLine, completedDepth + 1), moveCount);
+    }
+
+    /**
+     * Returns the best exact root score proven so far
+     */
+    private double getRootAlpha() {
+        return Double.longBitsToDouble(this.rootAlpha.get());
+    }
+
+    /**
+     * Raises the shared root alpha to the specified score, if higher
+     */
+    private void raiseRootAlpha(double value) {
+        long current = this.rootAlpha.get();
+        while (value > Double.longBitsToDouble(current)
+                && !this.rootAlpha.compareAndSet(current, Double.doubleToLongBits(value))) {
+            current = this.rootAlpha.get();
+        }
+    }
+
+    /**
+     * Searches by running the same iterative deepening search on every
+     * thread, communicating only through the shared transposition table
+     * 
+     * https://www.chessprogramming.org/Lazy_SMP
+     */
+    private SearchResult searchLazySmp(Game position, SearchLimits limits) {
+        Position root = position.getPosition();
+        Game game = root.toGame();
+
+        // Thread 0 is the main thread; the others are helpers that only fill the table
+        List<Future<LazySmpWorker>> helpers = new ArrayList<Future<LazySmpWorker>>();
+        for (int i = 1; i < this.threadCount; i++) {
+            helpers.add(this.executor.submit(new LazySmpWorker(root, i, limits.getDepth())));
+        }
+        LazySmpWorker main = new LazySmpWorker(root, 0, limits.getDepth());
+        main.call();
+
+        // The main thread has finished, so stop the helpers
+        this.stopSearch = true;
+        long moveCount = main.moveCount;
+        long hashMapHits = main.hashMapHits;
+        this.etcProbes = main.etcProbes;
+        this.etcCutoffs = main.etcCutoffs;
+        for (Future<LazySmpWorker> helper : helpers) {
+            try {
+                LazySmpWorker worker = helper.get();
+                moveCount += worker.moveCount;
+                hashMapHits += worker.hashMapHits;
+                this.etcProbes += worker.etcProbes;
+                this.etcCutoffs += worker.etcCutoffs;
             } catch (InterruptedException e) {
                 e.printStackTrace();
             } catch (ExecutionException e) {
                 e.printStackTrace();
             }
         }
-        
-        // Clear the hashmap
-        this.hashMap.clear();
-        Runtime.getRuntime().gc();
+        this.setProgress(1.0, moveCount, hashMapHits);
+        if (main.bestMove != null) {
+            this.publishSearchInfo(main.line, main.completedDepth, main.selDepth, 1, main.bestMoveValue,
+                    moveCount);
+        }
 
-        return bestMove;
+        // Fall back to any legal move if stopped before the first iteration completed
+        Move bestMove = main.bestMove;
+        int[] line = main.line;
+        if (bestMove == null && !main.rootMoves.isEmpty()) {
+            bestMove = main.rootMoves.get(0);
+            line = new int[] { TranspositionTable.encodeMove(bestMove) };
+        }
+        return new SearchResult(bestMove, main.bestMoveValue, main.completedDepth,
+                this.getPrincipalVariation(game, line, main.completedDepth + 1), moveCount);
     }
 
     /**
      * Thread pool worker to determine the value of a given move
      */
-    class MinimaxEngineWorker implements Callable<MinimaxEngineWorker> {
-        /** This worker's game instance */
-        private Game game;
-
+    class MinimaxEngineWorker extends SearchWorker implements Callable<MinimaxEngineWorker> {
         /** The top-level move to test */
         public Move move;
 
+        /** The index of the move in the root move list */
+        public final int index;
+
+        /** The depth to search below the move */
+        private final int depth;
+
         /** The move's determined value */
         public double moveValue;
 
-        /** The number of moves tested */
-        public long moveCount;
+        /** Did the search finish before the engine was stopped? */
+        public boolean isComplete;
+
+        /** Is the value exact, rather than an upper bound below the shared root alpha? */
+        public boolean isExact;
+
+        /** The number of full-window re-searches after a null-window search improved the root alpha */
+        public long researches;
 
-        /** Thread-safe hashmap to avoid evaluating repeat boards */
-        private Map<Integer, Double> hashMap;
-        
-        /** The number of hashmap hits */
-        public long hashMapHits;
+        /** The expected line of play starting with the move, as encoded moves */
+        public int[] line;
 
         /**
          * MinimaxEngineWorker constructor
          */
-        public MinimaxEngineWorker(Game game, Move move, Map<Integer, Double> hashMap) {
-            // Perform a deep copy so each worker has its own instance to manipulate
-            this.game = game.copy();
+        public MinimaxEngineWorker(Position position, Move move, int index, int depth) {
+            super(position, MinimaxEngine.this.transpositionTable);
             this.move = move.copy();
-            this.moveCount = 0;
-            this.hashMap = hashMap;
-            this.hashMapHits = 0;
+            this.index = index;
+            this.depth = depth;
         }
 
         @Override
@@ -129,72 +371,196 @@ public class MinimaxEngine extends Engine {
          * Determines the move's value
          */
         public MinimaxEngineWorker call() throws Exception {
+            this.attachState();
             this.game.executeMove(this.move, false);
             this.game.endTurn(false);
-            this.moveValue = minimax(depth, false, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            this.ply = 1;
+
+            // Prove the move can't beat the best root score with a null window first; the
+            // reply is expected to refute it, so the scout is a cut node, never a PV node
+            double alpha = getRootAlpha();
+            if (rootScout && alpha > Double.NEGATIVE_INFINITY) {
+                this.moveValue = minimax(this.depth, false, alpha, Math.nextUp(alpha), CUT_NODE);
+                this.isComplete = !stopSearch;
+                if (!this.isComplete || this.moveValue <= alpha) {
+                    this.isExact = false;
+                    this.line = new int[] { TranspositionTable.encodeMove(this.move) };
+                    return this;
+                }
+                this.researches += 1;
+            }
+
+            // Determine the move's value, publishing it if it improves the root alpha
+            this.moveValue = minimax(this.depth, false, getRootAlpha(), Double.POSITIVE_INFINITY, PV_NODE);
+            this.isComplete = !stopSearch;
+            this.isExact = this.isComplete && this.moveValue > getRootAlpha();
+            if (this.isExact) {
+                raiseRootAlpha(this.moveValue);
+            }
+
+            // Copy the line out of the thread's table before the next worker reuses it
+            this.state.updatePv(0, TranspositionTable.encodeMove(this.move));
+            this.line = this.state.getPv(0);
             return this;
         }
 
+        @Override
         /**
-         * Performs the minimax algorithm to determine a move's value
+         * Returns the best root score proven by any root worker
          */
-        private double minimax(int depth, boolean isMaximizingPlayer, double alpha, double beta) {
-            // Check the hashmap for this board
-            if (this.hashMap.containsKey(this.game.hashCode())) {
-                try {
-                    double value = this.hashMap.get(this.game.hashCode());
-                    this.hashMapHits += 1;
-                    return value;
-                } catch (NullPointerException ex) {
-                    System.out.println("Minimax - hashmap error");
-                }
-            }
+        protected double getAlphaFloor() {
+            return getRootAlpha();
+        }
+    }
 
-            // Base case
-            if (depth == 0) {
-                double value = -BoardEvaluator.evaluate(player, this.game.getBoard());
-                this.hashMap.put(this.game.hashCode(), value);
-                return value;
-            }
+    /**
+     * Worker verifying an easy move on the calling thread, for the root-split
+     * search
+     */
+    class EasyMoveVerifier extends SearchWorker {
+        /**
+         * EasyMoveVerifier constructor
+         */
+        public EasyMoveVerifier(Position position) {
+            super(position, MinimaxEngine.this.transpositionTable);
+        }
+
+        /**
+         * Returns whether every root move other than the specified best move is
+         * proven no better than the bound
+         */
+        public boolean verify(int bestMove, int depth, double bound) {
+            this.attachState();
+            return this.isEasyMove(bestMove, depth, bound);
+        }
+    }
+
+    /**
+     * Lazy SMP thread running an iterative deepening search of the whole root
+     */
+    class LazySmpWorker extends SearchWorker implements Callable<LazySmpWorker> {
+        /** This worker's thread index (0 for the main thread) */
+        private final int threadIndex;
 
-            List<Move> moves = this.game.getValidMoves(this.game.getActivePlayer());
+        /** The root moves, reordered between iterations */
+        public final List<Move> rootMoves;
 
-            if (isMaximizingPlayer) {
-                double bestValue = Double.NEGATIVE_INFINITY;
-                for (Move move : moves) {
-                    this.game.executeMove(move, false);
-                    this.game.endTurn(false);
-                    bestValue = Math.max(bestValue, minimax(depth - 1, !isMaximizingPlayer, alpha, beta));
-                    this.game.undoMove(move, false);
-                    this.game.endTurn(false);
-                    this.moveCount += 1;
+        /** Used by helper threads to vary the root move order */
+        private final Random random;
 
-                    alpha = Math.max(alpha, bestValue);
+        /** The best move of the deepest completed iteration */
+        public Move bestMove;
 
-                    // Alpha-Beta pruning
-                    if (beta <= alpha) {
-                        break;
-                    }
+        /** The value of the best move */
+        public double bestMoveValue = Double.NEGATIVE_INFINITY;
+
+        /** The expected line of play starting with the best move, as encoded moves */
+        public int[] line = new int[0];
+
+        /** The depth of the deepest completed iteration */
+        public int completedDepth;
+
+        /** Number of consecutive completed iterations with the same best move */
+        private int stableIterations;
+
+        /** The target depth */
+        private final int depth;
+
+        /**
+         * LazySmpWorker constructor
+         */
+        public LazySmpWorker(Position position, int threadIndex, int depth) {
+            super(position, MinimaxEngine.this.transpositionTable);
+            this.threadIndex = threadIndex;
+            this.depth = depth;
+            this.rootMoves = this.game.getValidMoves(this.game.getActivePlayer());
+            this.random = new Random(threadIndex);
+        }
+
+        @Override
+        /**
+         * Runs iterative deepening until the target depth is reached or the search is
+         * stopped
+         */
+        public LazySmpWorker call() {
+            // Odd helpers search one ply deeper than the main thread so threads finish
+            // iterations at different times and fill the table with different results
+            this.attachState();
+            int offset = this.threadIndex % 2;
+            for (int d = 1 + offset; d <= this.depth + offset && !stopSearch; d++) {
+                this.searchRoot(d);
+
+                // The main thread decides when a timed search has used enough time, and
+                // when the best move is clearly better than the others
+                if (this.threadIndex != 0 || this.bestMove == null || stopSearch) {
+                    continue;
+                }
+                if (isTimeUp(this.bestMove, this.bestMoveValue)) {
+                    break;
                 }
-                return bestValue;
-            } else {
-                double bestValue = Double.POSITIVE_INFINITY;
-                for (Move move : moves) {
-                    this.game.executeMove(move, false);
-                    this.game.endTurn(false);
-                    bestValue = Math.min(bestValue, minimax(depth - 1, !isMaximizingPlayer, alpha, beta));
-                    this.game.undoMove(move, false);
-                    this.game.endTurn(false);
-                    this.moveCount += 1;
-
-                    beta = Math.min(beta, bestValue);
-
-                    // Alpha-Beta pruning
-                    if (beta <= alpha) {
+                if (d < this.depth && this.stableIterations >= easyMoveIterations) {
+                    if (this.isEasyMove(TranspositionTable.encodeMove(this.bestMove), d - 1,
+                            this.bestMoveValue - easyMoveMargin)) {
                         break;
                     }
+
+                    // Otherwise wait for more stable iterations before verifying again
+                    this.stableIterations = 0;
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Searches every root move to the specified depth
+         */
+        private void searchRoot(int depth) {
+            // Try the previous best move first; helpers shuffle the rest
+            TranspositionEntry entry = this.transpositionTable.probe(this.game.getHashKey());
+            if (this.threadIndex != 0) {
+                Collections.shuffle(this.rootMoves, this.random);
+            }
+            moveToFront(this.rootMoves, entry != null ? entry.move : TranspositionTable.NO_MOVE);
+
+            double alpha = Double.NEGATIVE_INFINITY;
+            Move best = null;
+            this.state.clearPv(this.ply);
+            for (int i = 0; i < this.rootMoves.size(); i++) {
+                Move move = this.rootMoves.get(i);
+                this.game.executeMove(move, false);
+                this.game.endTurn(false);
+                this.ply += 1;
+                double value = minimax(depth, false, alpha, Double.POSITIVE_INFINITY, i == 0 ? PV_NODE : CUT_NODE);
+                this.ply -= 1;
+                this.game.undoMove(move, false);
+                this.game.endTurn(false);
+                this.moveCount += 1;
+
+                // Discard incomplete iterations
+                if (stopSearch) {
+                    return;
+                }
+
+                if (best == null || value > alpha) {
+                    best = move;
+                    alpha = value;
+                    this.state.updatePv(this.ply, TranspositionTable.encodeMove(move));
+                }
+            }
+
+            if (best != null) {
+                this.stableIterations = best == this.bestMove ? this.stableIterations + 1 : 1;
+                this.bestMove = best;
+                this.bestMoveValue = alpha;
+                this.line = this.state.getPv(this.ply);
+                this.completedDepth = depth;
+
+                // Only the main thread reports, counting its own nodes until the helpers finish
+                if (this.threadIndex == 0) {
+                    publishSearchInfo(this.line, depth, this.selDepth, 1, alpha, this.moveCount);
                 }
-                return bestValue;
+                this.transpositionTable.store(this.game.getHashKey(), depth + 1, alpha, TranspositionEntry.EXACT,
+                        TranspositionTable.encodeMove(best));
             }
         }
     }
@@ -0,0 +1,443 @@
+package chess.model.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+
+import chess.model.Game;
+import chess.model.Position;
+import chess.model.move.Move;
+
+/**
+ * Minimax chess engine that splits the search at interior nodes using the
+ * Young Brothers Wait concept: the eldest child of a node is searched serially,
+ * then its younger brothers are shared with helper tasks forked on a
+ * work-stealing pool (see SplitPoint)
+ *
+ * Below the split points it searches with the same core as MinimaxEngine.
+ *
+ * https://www.chessprogramming.org/Young_Brothers_Wait_Concept
+ */
+public class ParallelMinimaxEngine extends AlphaBetaEngine {
+    /** Minimum remaining depth at which younger brothers are searched in parallel */
+    private int minSplitDepth = 2;
+    public void setMinSplitDepth(int minSplitDepth) {
+        this.minSplitDepth = minSplitDepth;
+    }
+
+    /** Work-stealing pool, reused across moves and games */
+    private ForkJoinPool pool;
+
+    /** The number of moves tested */
+    private final LongAdder moveCount = new LongAdder();
+
+    /** The number of transposition table hits */
+    private final LongAdder hashMapHits = new LongAdder();
+
+    /** The number of split points where siblings were aborted by a beta cutoff */
+    private final LongAdder abortedSplits = new LongAdder();
+    public long getAbortedSplits() {
+        return this.abortedSplits.sum();
+    }
+
+    /**
+     * Search states not attached to any worker; a thread joining a task may run
+     * another task meanwhile, so states are lent to workers instead of threads
+     */
+    private final Queue<SearchState> idleStates = new ConcurrentLinkedQueue<SearchState>();
+
+    /**
+     * ParallelMinimaxEngine constructor
+     */
+    public ParallelMinimaxEngine(int threadCount) {
+        super(threadCount);
+        this.pool = new ForkJoinPool(threadCount);
+    }
+
+    @Override
+    /**
+     * Sets the maximum number of worker threads, replacing the pool if its
+     * parallelism changes
+     */
+    public synchronized void setThreadCount(int threadCount) {
+        super.setThreadCount(threadCount);
+        if (this.pool.getParallelism() != threadCount) {
+            // Any search in progress finishes on the old pool
+            this.pool.shutdown();
+            this.pool = new ForkJoinPool(threadCount);
+        }
+    }
+
+    @Override
+    /**
+     * Stops this engine's threads; the engine can't be run afterwards
+     */
+    public synchronized void close() {
+        super.close();
+        this.pool.shutdownNow();
+    }
+
+    @Override
+    /**
+     * Searches the specified game's position for the best move of the side to
+     * move
+     */
+    protected SearchResult search(Game game, SearchLimits limits) {
+        this.moveCount.reset();
+        this.hashMapHits.reset();
+        this.abortedSplits.reset();
+        this.newSearch();
+
+        ForkJoinPool pool;
+        synchronized (this) {
+            pool = this.pool;
+        }
+        // Each task's worker materializes its own game from the snapshot
+        Position position = game.getPosition();
+
+        // Deepen one ply at a time, searching the previous best move first, so a
+        // stopped search still has the best move of the last completed iteration
+        Move bestMove = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        int completedDepth = 0;
+        int stableIterations = 0;
+        for (int d = 1; d <= limits.getDepth() && !this.stopSearch; d++) {
+            int firstMove = bestMove != null ? TranspositionTable.encodeMove(bestMove) : TranspositionTable.NO_MOVE;
+            RootTask root = new RootTask(position, d, firstMove);
+            Move move = pool.invoke(root);
+            if (move == null) {
+                break;
+            }
+
+            // A stopped iteration only has the best of the root moves searched so far
+            if (this.stopSearch) {
+                if (bestMove == null) {
+                    bestMove = move;
+                    bestValue = root.bestValue;
+                }
+                break;
+            }
+            stableIterations = TranspositionTable.isMove(firstMove, move) ? stableIterations + 1 : 1;
+            bestMove = move;
+            bestValue = root.bestValue;
+            completedDepth = d;
+
+            // The search is never extended, so the selective depth is the full depth
+            this.publishSearchInfo(bestMove, d, d + 1, bestValue, this.moveCount.sum());
+            if (this.isTimeUp(bestMove, bestValue)) {
+                break;
+            }
+
+            // Stop early once the best move has stayed best for several iterations and
+            // every other move is proven clearly worse at a reduced depth
+            if (d < limits.getDepth() && stableIterations >= this.easyMoveIterations) {
+                if (pool.invoke(new EasyMoveTask(position, TranspositionTable.encodeMove(bestMove), d - 1,
+                        bestValue - this.easyMoveMargin))) {
+                    break;
+                }
+
+                // Otherwise wait for more stable iterations before verifying again
+                stableIterations = 0;
+            }
+        }
+        return new SearchResult(bestMove, bestValue, completedDepth,
+                this.getPrincipalVariation(game, bestMove, completedDepth + 1), this.moveCount.sum());
+    }
+
+    /**
+     * Worker searching on a pool thread, which splits nodes with enough
+     * remaining depth
+     */
+    class SplitWorker extends SearchWorker {
+        /** The split point whose moves this worker is searching, if any */
+        private SplitPoint splitPoint;
+
+        /**
+         * SplitWorker constructor
+         */
+        public SplitWorker(Position position, boolean isMaximizingPlayer, int ply) {
+            super(position, isMaximizingPlayer, ParallelMinimaxEngine.this.transpositionTable);
+            SearchState state = idleStates.poll();
+            this.attachState(state != null ? state : new SearchState());
+            this.ply = ply;
+        }
+
+        /**
+         * Adds this worker's counts to the engine's, and hands its search state
+         * back for reuse
+         */
+        public void finish() {
+            ParallelMinimaxEngine.this.moveCount.add(this.moveCount);
+            ParallelMinimaxEngine.this.hashMapHits.add(this.hashMapHits);
+            idleStates.add(this.state);
+        }
+
+        @Override
+        /**
+         * Returns whether the search was stopped, or a brother has refuted the
+         * node of a split point above this worker
+         */
+        protected boolean isAborted() {
+            return stopSearch || (this.splitPoint != null && this.splitPoint.isAborted());
+        }
+
+        @Override
+        /**
+         * Shares the moves after the eldest one with helper tasks once the
+         * remaining depth is large enough
+         */
+        protected SplitPoint split(List<Move> moves, int depth, boolean isMaximizingPlayer, double alpha, double beta,
+                double bestValue, int bestMove, int childType) {
+            int helpers = getHelperCount(moves.size());
+            if (depth < minSplitDepth || helpers == 0) {
+                return null;
+            }
+            SplitPoint split = new SplitPoint(this.splitPoint, this.game.getPosition(), moves, this.ply, depth,
+                    isMaximizingPlayer, childType, alpha, beta, bestValue, bestMove);
+            this.searchSplit(split, moves, helpers);
+            if (split.isCutoff()) {
+                abortedSplits.increment();
+            }
+            return split;
+        }
+
+        /**
+         * Searches a split point's moves together with the specified number of
+         * helper tasks, returning once every move has been searched
+         */
+        public void searchSplit(SplitPoint split, List<Move> moves, int helpers) {
+            List<HelperTask> tasks = new ArrayList<HelperTask>(helpers);
+            for (int i = 0; i < helpers; i++) {
+                HelperTask task = new HelperTask(split);
+                task.fork();
+                tasks.add(task);
+            }
+            this.searchMoves(split, moves);
+            for (HelperTask task : tasks) {
+                task.join();
+            }
+        }
+
+        /**
+         * Searches the split point's moves nobody has taken yet, given in the
+         * split point's order, reading its window before each one
+         */
+        public void searchMoves(SplitPoint split, List<Move> moves) {
+            SplitPoint parent = this.splitPoint;
+            this.splitPoint = split;
+            for (int i = split.nextMove(); i >= 0 && !this.isAborted(); i = split.nextMove()) {
+                Move move = moves.get(i);
+                this.game.executeMove(move, false);
+                this.game.endTurn(false);
+                this.ply += 1;
+                double value = minimax(split.getDepth() - 1, !split.isMaximizingPlayer(), split.getAlpha(),
+                        split.getBeta(), split.getChildType());
+                this.ply -= 1;
+                this.game.undoMove(move, false);
+                this.game.endTurn(false);
+                this.moveCount += 1;
+
+                // A value cut short by an abort is discarded
+                if (this.isAborted()) {
+                    break;
+                }
+
+                // Remember quiet moves that cause cutoffs
+                int encoded = TranspositionTable.encodeMove(move);
+                if (split.report(encoded, value) && move.toPiece == null) {
+                    this.state.addHistory(encoded, split.getDepth());
+                }
+                if (this.ply == 0) {
+                    setProgress((double) split.getSearchedCount() / split.size(),
+                            ParallelMinimaxEngine.this.moveCount.sum(), ParallelMinimaxEngine.this.hashMapHits.sum());
+                }
+            }
+            this.splitPoint = parent;
+        }
+
+        /**
+         * Returns this worker's moves, which must be those of the split point's
+         * position, in the split point's order
+         */
+        public List<Move> getMoves(SplitPoint split) {
+            List<Move> valid = this.game.getValidMoves(this.game.getActivePlayer());
+            List<Move> moves = new ArrayList<Move>(split.size());
+            for (int i = 0; i < split.size(); i++) {
+                for (Move move : valid) {
+                    if (TranspositionTable.isMove(split.getMove(i), move)) {
+                        moves.add(move);
+                        break;
+                    }
+                }
+            }
+            return moves;
+        }
+    }
+
+    /**
+     * Returns the number of helper tasks to fork for a node with the specified
+     * number of moves, one fewer than the threads that can share them
+     */
+    private static int getHelperCount(int moves) {
+        return Math.max(0, Math.min(moves, ForkJoinTask.getPool().getParallelism()) - 1);
+    }
+
+    /**
+     * Task helping to search a split point's moves on its own copy of the game
+     */
+    private class HelperTask extends RecursiveAction {
+        /** Generated UID */
+        private static final long serialVersionUID = 3236405316284357318L;
+
+        /** The split point to help with */
+        private final SplitPoint splitPoint;
+
+        /**
+         * HelperTask constructor
+         */
+        public HelperTask(SplitPoint splitPoint) {
+            this.splitPoint = splitPoint;
+        }
+
+        @Override
+        /**
+         * Searches moves of the split point until none are left
+         */
+        protected void compute() {
+            // The other threads may have taken every move before this task started
+            if (stopSearch || !this.splitPoint.hasMoves() || this.splitPoint.isAborted()) {
+                return;
+            }
+            SplitWorker worker = new SplitWorker(this.splitPoint.getPosition(), this.splitPoint.isMaximizingPlayer(),
+                    this.splitPoint.getPly());
+            worker.searchMoves(this.splitPoint, worker.getMoves(this.splitPoint));
+            worker.finish();
+        }
+    }
+
+    /**
+     * Task searching the root: the eldest root move is searched first, then the
+     * remaining root moves are shared with helper tasks, searched against the
+     * best value so far
+     */
+    private class RootTask extends RecursiveTask<Move> {
+        /** Generated UID */
+        private static final long serialVersionUID = -1510880521357624127L;
+
+        /** Snapshot of the root position */
+        private final Position position;
+
+        /** How many moves ahead to look below the root moves */
+        private final int depth;
+
+        /** The encoded move to search first */
+        private final int firstMove;
+
+        /** The selected move's value */
+        public double bestValue = Double.NEGATIVE_INFINITY;
+
+        /**
+         * RootTask constructor
+         */
+        public RootTask(Position position, int depth, int firstMove) {
+            this.position = position;
+            this.depth = depth;
+            this.firstMove = firstMove;
+        }
+
+        @Override
+        /**
+         * Selects the best root move
+         */
+        protected Move compute() {
+            SplitWorker worker = new SplitWorker(this.position, true, 0);
+            Game game = worker.game;
+            List<Move> moves = game.getValidMoves(game.getActivePlayer());
+            if (moves.isEmpty()) {
+                worker.finish();
+                return null;
+            }
+            worker.orderMoves(moves, this.firstMove);
+
+            // Search the eldest brother serially
+            Move eldest = moves.get(0);
+            game.executeMove(eldest, false);
+            game.endTurn(false);
+            worker.ply = 1;
+            double eldestValue = worker.minimax(this.depth, false, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY,
+                    SearchWorker.PV_NODE);
+            worker.ply = 0;
+            game.undoMove(eldest, false);
+            game.endTurn(false);
+            worker.moveCount += 1;
+            if (stopSearch) {
+                worker.finish();
+                return eldest;
+            }
+            setProgress(1.0 / moves.size(), moveCount.sum() + worker.moveCount, hashMapHits.sum());
+
+            // Search the younger brothers in parallel, keeping the best of those that
+            // finished before any stop
+            SplitPoint split = new SplitPoint(null, this.position, moves, 0, this.depth + 1, true,
+                    SearchWorker.CUT_NODE, eldestValue, Double.POSITIVE_INFINITY, eldestValue,
+                    TranspositionTable.encodeMove(eldest));
+            worker.searchSplit(split, moves, getHelperCount(moves.size()));
+            worker.finish();
+            this.bestValue = split.getBestValue();
+            for (Move move : moves) {
+                if (TranspositionTable.isMove(split.getBestMove(), move)) {
+                    return move;
+                }
+            }
+            return eldest;
+        }
+    }
+
+    /**
+     * Task proving that every root move other than the best one is no better
+     * than a bound, using null-window searches
+     */
+    private class EasyMoveTask extends RecursiveTask<Boolean> {
+        /** Generated UID */
+        private static final long serialVersionUID = 6402787316432915043L;
+
+        /** Snapshot of the root position */
+        private final Position position;
+
+        /** The encoded best move */
+        private final int bestMove;
+
+        /** How many moves ahead to look below the other root moves */
+        private final int depth;
+
+        /** The score every other move must not exceed */
+        private final double bound;
+
+        /**
+         * EasyMoveTask constructor
+         */
+        public EasyMoveTask(Position position, int bestMove, int depth, double bound) {
+            this.position = position;
+            this.bestMove = bestMove;
+            this.depth = depth;
+            this.bound = bound;
+        }
+
+        @Override
+        /**
+         * Returns whether the best move is clearly better than the others
+         */
+        protected Boolean compute() {
+            SplitWorker worker = new SplitWorker(this.position, true, 0);
+            boolean isEasy = worker.isEasyMove(this.bestMove, this.depth, this.bound);
+            worker.finish();
+            return isEasy;
+        }
+    }
+}
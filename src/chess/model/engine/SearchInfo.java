@@ -0,0 +1,83 @@
+package chess.model.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import chess.model.move.Move;
+
+/**
+ * A snapshot of a search in progress
+ */
+public class SearchInfo {
+    /** The depth of the deepest completed iteration */
+    private final int depth;
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /** The greatest distance from the root reached by the search */
+    private final int selDepth;
+    public int getSelDepth() {
+        return this.selDepth;
+    }
+
+    /** The line's rank among the best root moves, starting at 1 */
+    private final int multiPv;
+    public int getMultiPv() {
+        return this.multiPv;
+    }
+
+    /** The line's value from the searching player's perspective */
+    private final double score;
+    public double getScore() {
+        return this.score;
+    }
+
+    /** The expected line of play, starting with the line's root move */
+    private final List<Move> principalVariation;
+    public List<Move> getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    /** The number of moves tested so far */
+    private final long nodes;
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    /** Moves tested per second */
+    private final long nodesPerSecond;
+    public long getNodesPerSecond() {
+        return this.nodesPerSecond;
+    }
+
+    /** Transposition table usage by the current search, in permille */
+    private final int hashFull;
+    public int getHashFull() {
+        return this.hashFull;
+    }
+
+    /**
+     * SearchInfo constructor
+     */
+    public SearchInfo(int depth, int selDepth, int multiPv, double score, List<Move> principalVariation, long nodes,
+            long nodesPerSecond, int hashFull) {
+        this.depth = depth;
+        this.selDepth = selDepth;
+        this.multiPv = multiPv;
+        this.score = score;
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.nodes = nodes;
+        this.nodesPerSecond = nodesPerSecond;
+        this.hashFull = hashFull;
+    }
+
+    @Override
+    /**
+     * Override toString()
+     */
+    public String toString() {
+        return String.format("depth %d seldepth %d multipv %d score %s nodes %d nps %d hashfull %d pv %s",
+                this.depth, this.selDepth, this.multiPv, this.score, this.nodes, this.nodesPerSecond, this.hashFull, this.principalVariation);
+    }
+}
@@ -0,0 +1,236 @@
+package chess.model.engine;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Publishes search info to subscribers without ever blocking the search
+ *
+ * Each subscriber has a small buffer drained on the delivery executor as it
+ * requests items. When a slow subscriber's buffer is full the oldest item is
+ * dropped, so it always receives the latest info once it catches up.
+ */
+public class SearchInfoPublisher implements Flow.Publisher<SearchInfo> {
+    /** Default number of items buffered per subscriber */
+    public static final int DEFAULT_BUFFER_SIZE = 8;
+
+    /** Runs deliveries to subscribers */
+    private final Executor executor;
+
+    /** Maximum number of items buffered per subscriber */
+    private final int bufferSize;
+
+    /** Current subscriptions */
+    private final List<InfoSubscription> subscriptions = new CopyOnWriteArrayList<InfoSubscription>();
+
+    /** Has the publisher been closed? */
+    private volatile boolean isClosed = false;
+
+    /**
+     * SearchInfoPublisher constructor
+     */
+    public SearchInfoPublisher(Executor executor, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must be positive");
+        }
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    /**
+     * Adds a subscriber
+     */
+    public void subscribe(Flow.Subscriber<? super SearchInfo> subscriber) {
+        InfoSubscription subscription = new InfoSubscription(subscriber);
+        this.subscriptions.add(subscription);
+        subscriber.onSubscribe(subscription);
+        if (this.isClosed) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * Returns whether any subscriber is attached, so callers can skip building
+     * items nobody will receive
+     */
+    public boolean hasSubscribers() {
+        return !this.subscriptions.isEmpty();
+    }
+
+    /**
+     * Offers an item to every subscriber without blocking
+     */
+    public void publish(SearchInfo info) {
+        for (InfoSubscription subscription : this.subscriptions) {
+            subscription.offer(info);
+        }
+    }
+
+    /**
+     * Completes every subscription once its buffered items are delivered
+     */
+    public void close() {
+        this.isClosed = true;
+        for (InfoSubscription subscription : this.subscriptions) {
+            subscription.complete();
+        }
+    }
+
+    /**
+     * A single subscriber's buffer and demand
+     */
+    private class InfoSubscription implements Flow.Subscription, Runnable {
+        /** The subscriber receiving items */
+        private final Flow.Subscriber<? super SearchInfo> subscriber;
+
+        /** Items waiting for demand, oldest first */
+        private final ArrayDeque<SearchInfo> buffer = new ArrayDeque<SearchInfo>();
+
+        /** Number of items requested but not yet delivered */
+        private long demand = 0;
+
+        /** Has the subscriber cancelled, or been sent a terminal signal? */
+        private boolean isCancelled = false;
+
+        /** Has the publisher completed this subscription? */
+        private boolean isCompleted = false;
+
+        /** Error to signal in place of further items, if any */
+        private Throwable error;
+
+        /** Is a delivery run scheduled on the executor? */
+        private final AtomicBoolean isScheduled = new AtomicBoolean(false);
+
+        /**
+         * InfoSubscription constructor
+         */
+        public InfoSubscription(Flow.Subscriber<? super SearchInfo> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Buffers an item, dropping the oldest one if the buffer is full
+         */
+        public void offer(SearchInfo info) {
+            synchronized (this) {
+                if (this.isCancelled || this.isCompleted) {
+                    return;
+                }
+                if (this.buffer.size() == bufferSize) {
+                    this.buffer.pollFirst();
+                }
+                this.buffer.addLast(info);
+            }
+            this.schedule();
+        }
+
+        /**
+         * Completes this subscription once the buffer is drained
+         */
+        public void complete() {
+            synchronized (this) {
+                this.isCompleted = true;
+            }
+            this.schedule();
+        }
+
+        @Override
+        /**
+         * Adds demand for the specified number of items
+         */
+        public void request(long n) {
+            synchronized (this) {
+                if (n <= 0) {
+                    this.error = new IllegalArgumentException("non-positive request: " + n);
+                } else {
+                    this.demand = this.demand + n < 0 ? Long.MAX_VALUE : this.demand + n;
+                }
+            }
+            this.schedule();
+        }
+
+        @Override
+        /**
+         * Stops delivery to the subscriber
+         */
+        public void cancel() {
+            synchronized (this) {
+                this.isCancelled = true;
+                this.buffer.clear();
+            }
+            subscriptions.remove(this);
+        }
+
+        /**
+         * Schedules a delivery run unless one is already pending
+         */
+        private void schedule() {
+            if (this.isScheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        /**
+         * Delivers buffered items while there is demand
+         */
+        public void run() {
+            while (true) {
+                SearchInfo info = null;
+                Throwable error = null;
+                boolean complete = false;
+                synchronized (this) {
+                    if (this.isCancelled) {
+                        break;
+                    }
+                    if (this.error != null) {
+                        error = this.error;
+                        this.isCancelled = true;
+                    } else if (this.demand > 0 && !this.buffer.isEmpty()) {
+                        info = this.buffer.pollFirst();
+                        this.demand -= 1;
+                    } else if (this.isCompleted && this.buffer.isEmpty()) {
+                        complete = true;
+                        this.isCancelled = true;
+                    } else {
+                        break;
+                    }
+                }
+
+                if (error != null) {
+                    subscriptions.remove(this);
+                    this.subscriber.onError(error);
+                } else if (complete) {
+                    subscriptions.remove(this);
+                    this.subscriber.onComplete();
+                } else {
+                    try {
+                        this.subscriber.onNext(info);
+                    } catch (RuntimeException e) {
+                        this.cancel();
+                        this.subscriber.onError(e);
+                    }
+                }
+            }
+
+            // Pick up anything offered after the last check
+            this.isScheduled.set(false);
+            if (this.hasWork()) {
+                this.schedule();
+            }
+        }
+
+        /**
+         * Returns whether a delivery run would do anything
+         */
+        private synchronized boolean hasWork() {
+            return !this.isCancelled && (this.error != null || (this.demand > 0 && !this.buffer.isEmpty())
+                    || (this.isCompleted && this.buffer.isEmpty()));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package chess.model.engine;
+
+/**
+ * Limits on a single search
+ */
+public class SearchLimits {
+    /** Depth limit for searches bounded only by time */
+    public static final int MAX_DEPTH = 64;
+
+    /** How many moves ahead to look */
+    private int depth;
+    public int getDepth() {
+        return this.depth;
+    }
+    public void setDepth(int depth) {
+        this.depth = depth;
+    }
+
+    /** Time after which the search stops with its best move so far, in milliseconds (0 for no limit) */
+    private long moveTime = 0;
+    public long getMoveTime() {
+        return this.moveTime;
+    }
+    public void setMoveTime(long moveTime) {
+        this.moveTime = moveTime;
+    }
+
+    /** The engine player's remaining clock time, in milliseconds (0 for an untimed search) */
+    private long remainingTime = 0;
+    public long getRemainingTime() {
+        return this.remainingTime;
+    }
+    public void setRemainingTime(long remainingTime) {
+        this.remainingTime = remainingTime;
+    }
+
+    /** Time added to the engine player's clock after each move, in milliseconds */
+    private long increment = 0;
+    public long getIncrement() {
+        return this.increment;
+    }
+    public void setIncrement(long increment) {
+        this.increment = increment;
+    }
+
+    /** Moves until the next time control (0 for sudden death) */
+    private int movesToGo = 0;
+    public int getMovesToGo() {
+        return this.movesToGo;
+    }
+    public void setMovesToGo(int movesToGo) {
+        this.movesToGo = movesToGo;
+    }
+
+    /**
+     * SearchLimits constructor
+     */
+    public SearchLimits(int depth) {
+        this.depth = depth;
+    }
+
+    /**
+     * SearchLimits constructor
+     */
+    public SearchLimits(int depth, long moveTime) {
+        this.depth = depth;
+        this.moveTime = moveTime;
+    }
+
+    /**
+     * Returns whether the search is limited by a clock
+     */
+    public boolean isTimed() {
+        return this.remainingTime > 0;
+    }
+}
@@ -0,0 +1,60 @@
+package chess.model.engine;
+
+import java.util.Collections;
+import java.util.List;
+
+import chess.model.move.Move;
+
+/**
+ * The outcome of a single search
+ */
+public class SearchResult {
+    /** The selected move, or null if there are no legal moves */
+    private final Move move;
+    public Move getMove() {
+        return this.move;
+    }
+
+    /** The selected move's value from the searching player's perspective */
+    private final double score;
+    public double getScore() {
+        return this.score;
+    }
+
+    /** The depth of the deepest completed iteration (0 if none completed) */
+    private final int depth;
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /** The expected line of play, starting with the selected move */
+    private final List<Move> principalVariation;
+    public List<Move> getPrincipalVariation() {
+        return this.principalVariation;
+    }
+
+    /** The number of moves tested, 0 for a forced move, which isn't searched */
+    private final long nodeCount;
+    public long getNodeCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * SearchResult constructor
+     */
+    public SearchResult(Move move, double score, int depth, List<Move> principalVariation, long nodeCount) {
+        this.move = move;
+        this.score = score;
+        this.depth = depth;
+        this.principalVariation = Collections.unmodifiableList(principalVariation);
+        this.nodeCount = nodeCount;
+    }
+
+    @Override
+    /**
+     * Override toString()
+     */
+    public String toString() {
+        return this.move + " (score " + this.score + ", depth " + this.depth + ", " + this.nodeCount + " nodes)";
+    }
+}
@@ -0,0 +1,113 @@
+package chess.model.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import chess.model.move.Move;
+
+/**
+ * Search state owned by a single worker thread and reused across searches
+ */
+class SearchState {
+    /** Number of distinct encoded moves */
+    private static final int MOVE_KEYS = 1 << 12;
+
+    /** Maximum distance from the root tracked by the principal variation table */
+    private static final int MAX_PLY = SearchLimits.MAX_DEPTH * 2;
+
+    /** History heuristic scores by encoded move */
+    private final int[] history = new int[MOVE_KEYS];
+
+    /**
+     * Triangular principal variation table: the encoded best line found at each
+     * ply, and its length
+     *
+     * https://www.chessprogramming.org/Triangular_PV-Table
+     */
+    private final int[][] pvTable = new int[MAX_PLY + 1][MAX_PLY];
+    private final int[] pvLength = new int[MAX_PLY + 1];
+
+    /** Move list buffers by ply */
+    private final List<List<Move>> moveBuffers = new ArrayList<List<Move>>();
+
+    /** The game and search this state was last used by */
+    private long gameId = -1;
+    private long searchId = -1;
+
+    /**
+     * Prepares this state for the specified search, aging history scores left
+     * over from earlier searches of the same game and discarding everything
+     * left over from earlier games
+     */
+    public void startSearch(long gameId, long searchId) {
+        if (this.gameId != gameId) {
+            this.gameId = gameId;
+            Arrays.fill(this.history, 0);
+            this.moveBuffers.clear();
+        } else if (this.searchId != searchId) {
+            for (int i = 0; i < this.history.length; i++) {
+                this.history[i] /= 2;
+            }
+        }
+        this.searchId = searchId;
+    }
+
+    /**
+     * Returns the empty move buffer of the specified ply
+     */
+    public List<Move> getMoveBuffer(int ply) {
+        while (this.moveBuffers.size() <= ply) {
+            this.moveBuffers.add(new ArrayList<Move>());
+        }
+        List<Move> moves = this.moveBuffers.get(ply);
+        moves.clear();
+        return moves;
+    }
+
+    /**
+     * Empties the principal variation of the specified ply
+     */
+    public void clearPv(int ply) {
+        if (ply < MAX_PLY) {
+            this.pvLength[ply] = 0;
+        }
+    }
+
+    /**
+     * Sets the principal variation of the specified ply to the encoded move
+     * followed by the principal variation of the next ply
+     */
+    public void updatePv(int ply, int move) {
+        if (ply >= MAX_PLY) {
+            return;
+        }
+        int length = Math.min(this.pvLength[ply + 1], MAX_PLY - 1);
+        this.pvTable[ply][0] = move;
+        System.arraycopy(this.pvTable[ply + 1], 0, this.pvTable[ply], 1, length);
+        this.pvLength[ply] = length + 1;
+    }
+
+    /**
+     * Returns a copy of the principal variation of the specified ply
+     */
+    public int[] getPv(int ply) {
+        return ply < MAX_PLY ? Arrays.copyOf(this.pvTable[ply], this.pvLength[ply]) : new int[0];
+    }
+
+    /**
+     * Returns the history score of the specified move
+     * 
+     * https://www.chessprogramming.org/History_Heuristic
+     */
+    public int getHistory(int move) {
+        return move == TranspositionTable.NO_MOVE ? 0 : this.history[move];
+    }
+
+    /**
+     * Rewards a quiet move that produced a cutoff at the specified depth
+     */
+    public void addHistory(int move, int depth) {
+        this.history[move] = Math.min(this.history[move] + depth * depth, Integer.MAX_VALUE / 2);
+    }
+}
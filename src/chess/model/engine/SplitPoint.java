@@ -0,0 +1,182 @@
+package chess.model.engine;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import chess.model.Position;
+import chess.model.move.Move;
+
+/**
+ * A node whose younger brothers are searched by several threads
+ *
+ * Each thread takes the next move nobody has taken yet, reads the node's
+ * current window before searching it and reports its value, so a value found
+ * by one thread narrows the window of every move searched after it. A beta
+ * cutoff aborts the searches still running below the node.
+ *
+ * https://www.chessprogramming.org/Young_Brothers_Wait_Concept
+ */
+class SplitPoint {
+    /** The enclosing split point, if any */
+    private final SplitPoint parent;
+
+    /** Snapshot of the node's position, which helping threads start from */
+    private final Position position;
+    public Position getPosition() {
+        return this.position;
+    }
+
+    /** The node's moves in search order, as encoded moves */
+    private final int[] moves;
+
+    /** Distance of the node from the root */
+    private final int ply;
+    public int getPly() {
+        return this.ply;
+    }
+
+    /** Remaining depth at the node */
+    private final int depth;
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /** Is the side to move at the node the maximizing player? */
+    private final boolean isMaximizingPlayer;
+    public boolean isMaximizingPlayer() {
+        return this.isMaximizingPlayer;
+    }
+
+    /** Node type of the younger brothers */
+    private final int childType;
+    public int getChildType() {
+        return this.childType;
+    }
+
+    /** Index of the next move to hand out */
+    private final AtomicInteger nextMove = new AtomicInteger(1);
+
+    /** The node's window, narrowed as values are reported */
+    private volatile double alpha;
+    public double getAlpha() {
+        return this.alpha;
+    }
+    private volatile double beta;
+    public double getBeta() {
+        return this.beta;
+    }
+
+    /** The best value reported so far, including the eldest brother's */
+    private double bestValue;
+    public synchronized double getBestValue() {
+        return this.bestValue;
+    }
+
+    /** The encoded move with the best value */
+    private int bestMove;
+    public synchronized int getBestMove() {
+        return this.bestMove;
+    }
+
+    /** Number of moves whose value is known, including the eldest brother */
+    private int searchedCount = 1;
+    public synchronized int getSearchedCount() {
+        return this.searchedCount;
+    }
+
+    /** Set when a reported value produced a cutoff */
+    private volatile boolean isCutoff = false;
+    public boolean isCutoff() {
+        return this.isCutoff;
+    }
+
+    /**
+     * SplitPoint constructor, for a node whose eldest brother has been searched
+     */
+    public SplitPoint(SplitPoint parent, Position position, List<Move> moves, int ply, int depth,
+            boolean isMaximizingPlayer, int childType, double alpha, double beta, double bestValue, int bestMove) {
+        this.parent = parent;
+        this.position = position;
+        this.moves = new int[moves.size()];
+        for (int i = 0; i < this.moves.length; i++) {
+            this.moves[i] = TranspositionTable.encodeMove(moves.get(i));
+        }
+        this.ply = ply;
+        this.depth = depth;
+        this.isMaximizingPlayer = isMaximizingPlayer;
+        this.childType = childType;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.bestValue = bestValue;
+        this.bestMove = bestMove;
+    }
+
+    /**
+     * Returns the number of moves of the node
+     */
+    public int size() {
+        return this.moves.length;
+    }
+
+    /**
+     * Returns the encoded move at the specified index
+     */
+    public int getMove(int index) {
+        return this.moves[index];
+    }
+
+    /**
+     * Returns whether any move is left to hand out
+     */
+    public boolean hasMoves() {
+        return this.nextMove.get() < this.moves.length;
+    }
+
+    /**
+     * Hands out the index of the next move to search, or -1 if every move has
+     * been handed out
+     */
+    public int nextMove() {
+        int index = this.nextMove.getAndIncrement();
+        return index < this.moves.length ? index : -1;
+    }
+
+    /**
+     * Records the value of a searched move, narrowing the window; returns
+     * whether the value produced the node's cutoff
+     */
+    public synchronized boolean report(int move, double value) {
+        if (this.isCutoff) {
+            return false;
+        }
+        this.searchedCount += 1;
+        if (this.isMaximizingPlayer ? value > this.bestValue : value < this.bestValue) {
+            this.bestValue = value;
+            this.bestMove = move;
+        }
+        if (this.isMaximizingPlayer) {
+            this.alpha = Math.max(this.alpha, this.bestValue);
+        } else {
+            this.beta = Math.min(this.beta, this.bestValue);
+        }
+
+        // Alpha-Beta pruning
+        if (this.beta <= this.alpha) {
+            this.isCutoff = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether this or any enclosing split point has been cut off
+     */
+    public boolean isAborted() {
+        for (SplitPoint sp = this; sp != null; sp = sp.parent) {
+            if (sp.isCutoff) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,86 @@
+package chess.model.engine;
+
+/**
+ * Allocates time for a single move from the remaining clock time
+ *
+ * The soft limit is the time the search aims to use: no new iteration starts
+ * once it has likely run out, and it is stretched while the best move is
+ * unstable or the score is dropping. The hard limit is never exceeded; the
+ * search is stopped with its best move so far when it is reached.
+ *
+ * https://www.chessprogramming.org/Time_Management
+ */
+public class TimeManager {
+    /** Time kept back per move for scheduling and GUI delays, in milliseconds */
+    public static final long MOVE_OVERHEAD = 50;
+
+    /** Number of moves assumed to remain when the time control doesn't say */
+    public static final int DEFAULT_MOVES_TO_GO = 30;
+
+    /** Score drop between iterations treated as trouble (about a third of a pawn) */
+    public static final double SCORE_DROP = 3.0;
+
+    /** Target time for the move, in milliseconds */
+    private final long softLimit;
+    public long getSoftLimit() {
+        return this.softLimit;
+    }
+
+    /** Time after which the search is stopped, in milliseconds */
+    private final long hardLimit;
+    public long getHardLimit() {
+        return this.hardLimit;
+    }
+
+    /** When the search started, in nanoseconds */
+    private final long startTime;
+
+    /** Best move and score of the previous iteration */
+    private int lastMove = TranspositionTable.NO_MOVE;
+    private double lastScore = Double.NaN;
+
+    /** Decaying count of best move changes between iterations */
+    private double bestMoveChanges = 0;
+
+    /**
+     * TimeManager constructor
+     */
+    public TimeManager(long remainingTime, long increment, int movesToGo) {
+        this.startTime = System.nanoTime();
+
+        // Spread the remaining time over the remaining moves, keeping most of each
+        // increment for later, and never plan to use more than half the clock unless
+        // this is the last move of the time control
+        long available = Math.max(1, remainingTime - MOVE_OVERHEAD);
+        int moves = movesToGo > 0 ? Math.min(movesToGo, DEFAULT_MOVES_TO_GO) : DEFAULT_MOVES_TO_GO;
+        long maximum = movesToGo == 1 ? available : available / 2;
+        this.hardLimit = Math.max(1, Math.min(maximum, (available / moves + increment * 3 / 4) * 4));
+        this.softLimit = Math.max(1, Math.min(this.hardLimit, available / moves + increment * 3 / 4));
+    }
+
+    /**
+     * Returns the time since the search started, in milliseconds
+     */
+    public long getElapsed() {
+        return (System.nanoTime() - this.startTime) / 1000000;
+    }
+
+    /**
+     * Records a completed iteration's best move and score, and returns whether
+     * the search should stop instead of starting another iteration
+     */
+    public boolean iterationCompleted(int bestMove, double score) {
+        this.bestMoveChanges /= 2;
+        if (this.lastMove != TranspositionTable.NO_MOVE && bestMove != this.lastMove) {
+            this.bestMoveChanges += 1;
+        }
+        boolean scoreDropped = score < this.lastScore - SCORE_DROP;
+        this.lastMove = bestMove;
+        this.lastScore = score;
+
+        // Each iteration usually takes longer than all of the previous ones together,
+        // so don't start one that is unlikely to finish within the soft limit
+        double limit = this.softLimit * (1 + this.bestMoveChanges) * (scoreDropped ? 1.5 : 1.0);
+        return this.getElapsed() >= Math.min(limit, this.hardLimit) / 2;
+    }
+}
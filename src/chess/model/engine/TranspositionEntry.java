@@ -0,0 +1,52 @@
+package chess.model.engine;
+
+/**
+ * An immutable transposition table entry
+ */
+public class TranspositionEntry {
+    /** Bound - the value is exact */
+    public static final int EXACT = 0;
+
+    /** Bound - the true value is at least the stored value (fail high) */
+    public static final int LOWER = 1;
+
+    /** Bound - the true value is at most the stored value (fail low) */
+    public static final int UPPER = 2;
+
+    /** The remaining depth this position was searched to */
+    public final int depth;
+
+    /** The position's value from the engine player's perspective */
+    public final double value;
+
+    /** The bound type of the value */
+    public final int bound;
+
+    /** The best move found in this position (encoded), if any */
+    public final int move;
+
+    /**
+     * TranspositionEntry constructor
+     */
+    public TranspositionEntry(int depth, double value, int bound, int move) {
+        this.depth = depth;
+        this.value = value;
+        this.bound = bound;
+        this.move = move;
+    }
+
+    /**
+     * Returns whether this entry's value can be used directly within the
+     * specified alpha-beta window
+     */
+    public boolean isCutoff(double alpha, double beta) {
+        switch (this.bound) {
+        case LOWER:
+            return this.value >= beta;
+        case UPPER:
+            return this.value <= alpha;
+        default:
+            return true;
+        }
+    }
+}
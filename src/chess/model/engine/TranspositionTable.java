@@ -0,0 +1,150 @@
+package chess.model.engine;
+
+import java.util.Arrays;
+
+import chess.model.move.Move;
+
+/**
+ * Lockless transposition table storing search results by position
+ *
+ * Each slot holds two longs: the entry data, and the hash key XORed with the
+ * data. A slot only matches a key when both words were written by the same
+ * store, so torn writes from concurrent threads read back as misses instead of
+ * corrupt entries.
+ *
+ * The table is kept between searches. Each entry records the search generation
+ * that stored it, and entries from earlier generations are replaced first.
+ *
+ * https://www.chessprogramming.org/Transposition_Table
+ * https://www.chessprogramming.org/Shared_Hash_Table#Lock-less
+ */
+public class TranspositionTable {
+    /** Encoded value for "no move" */
+    public static final int NO_MOVE = -1;
+
+    /** Default table size in megabytes */
+    public static final int DEFAULT_SIZE_MB = 32;
+
+    /** Bytes per slot (two longs) */
+    private static final int SLOT_BYTES = 16;
+
+    /** Data layout: value (float bits), depth, bound, move + 1, generation, valid flag */
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 55;
+    private static final long VALID = 1L << 63;
+
+    /** Mask wrapping the generation counter to its eight bits */
+    private static final int GENERATION_MASK = 0xFF;
+
+    /** Slots stored as [key ^ data, data] pairs */
+    private final long[] slots;
+
+    /** Mask selecting a slot index from a hash key */
+    private final int mask;
+
+    /** The current search generation */
+    private volatile int generation = 0;
+
+    /**
+     * TranspositionTable constructor
+     */
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
+    }
+
+    /**
+     * TranspositionTable constructor
+     */
+    public TranspositionTable(int sizeMb) {
+        // Round down to a power of two so slots can be selected with a mask
+        long slotCount = Long.highestOneBit(Math.max(1L, (long) sizeMb * 1024 * 1024 / SLOT_BYTES));
+        this.slots = new long[(int) slotCount * 2];
+        this.mask = (int) slotCount - 1;
+    }
+
+    /**
+     * Returns the entry for the specified position, if any
+     */
+    public TranspositionEntry probe(long key) {
+        int idx = ((int) key & this.mask) << 1;
+        long data = this.slots[idx + 1];
+        if ((this.slots[idx] ^ data) != key || (data & VALID) == 0) {
+            return null;
+        }
+
+        float value = Float.intBitsToFloat((int) data);
+        int depth = (int) (data >>> DEPTH_SHIFT) & 0xFF;
+        int bound = (int) (data >>> BOUND_SHIFT) & 0x3;
+        int move = ((int) (data >>> MOVE_SHIFT) & 0x1FFF) - 1;
+        return new TranspositionEntry(depth, value, bound, move);
+    }
+
+    /**
+     * Stores a search result, unless the slot holds an entry from the current
+     * generation that was searched deeper
+     */
+    public void store(long key, int depth, double value, int bound, int move) {
+        int idx = ((int) key & this.mask) << 1;
+        long existing = this.slots[idx + 1];
+        if ((existing & VALID) != 0 && ((int) (existing >>> GENERATION_SHIFT) & GENERATION_MASK) == this.generation
+                && ((int) (existing >>> DEPTH_SHIFT) & 0xFF) > depth) {
+            return;
+        }
+
+        long data = VALID;
+        data |= Float.floatToIntBits((float) value) & 0xFFFFFFFFL;
+        data |= (long) Math.min(depth, 0xFF) << DEPTH_SHIFT;
+        data |= (long) bound << BOUND_SHIFT;
+        data |= (long) (move + 1) << MOVE_SHIFT;
+        data |= (long) this.generation << GENERATION_SHIFT;
+        this.slots[idx] = key ^ data;
+        this.slots[idx + 1] = data;
+    }
+
+    /**
+     * Starts a new search generation, making existing entries preferred for
+     * replacement
+     */
+    public void newSearch() {
+        this.generation = (this.generation + 1) & GENERATION_MASK;
+    }
+
+    /**
+     * Returns the permille of sampled slots holding entries from the current
+     * generation
+     */
+    public int getHashFull() {
+        int sampled = Math.min(1000, this.mask + 1);
+        int used = 0;
+        for (int i = 0; i < sampled; i++) {
+            long data = this.slots[(i << 1) + 1];
+            if ((data & VALID) != 0 && ((int) (data >>> GENERATION_SHIFT) & GENERATION_MASK) == this.generation) {
+                used += 1;
+            }
+        }
+        return used * 1000 / sampled;
+    }
+
+    /**
+     * Removes all entries
+     */
+    public void clear() {
+        Arrays.fill(this.slots, 0);
+    }
+
+    /**
+     * Encodes a move's from/to positions as an integer
+     */
+    public static int encodeMove(Move move) {
+        return (move.from << 6) | move.to;
+    }
+
+    /**
+     * Returns whether the encoded move matches the specified move
+     */
+    public static boolean isMove(int encoded, Move move) {
+        return encoded != NO_MOVE && encoded == encodeMove(move);
+    }
+}
@@ -1,14 +1,14 @@
 package chess.model.move;
 
-import java.awt.Point;
 import java.util.List;
 
 import chess.model.Board;
 import chess.model.Game;
+import chess.model.Square;
+import chess.model.Zobrist;
 import chess.model.piece.King;
 import chess.model.piece.Piece;
 import chess.model.piece.PieceColor;
-import chess.model.piece.Rook;
 
 /**
  * Represents a "castle" move where a king and a rook both move at once
@@ -16,16 +16,16 @@ import chess.model.piece.Rook;
  * https://en.wikipedia.org/wiki/Castling
  */
 public class CastleMove extends Move {
-    /** The position to move the rook from */
-    public final Point rookFrom;
+    /** The index of the square to move the rook from */
+    public final int rookFrom;
 
-    /** The position to move the rook to */
-    public final Point rookTo;
+    /** The index of the square to move the rook to */
+    public final int rookTo;
 
     /**
      * CastleMove constructor
      */
-    public CastleMove(King king, Point kingFrom, Point kingTo, Point rookFrom, Point rookTo) {
+    public CastleMove(King king, int kingFrom, int kingTo, int rookFrom, int rookTo) {
         super(kingFrom, kingTo, king, null);
         this.rookFrom = rookFrom;
         this.rookTo = rookTo;
@@ -42,40 +42,46 @@ public class CastleMove extends Move {
     /**
      * Adds castle moves
      * 
-     * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
+     * Note: The king's square, the square it passes through and its destination
+     * must all be in the target mask, so a mask of the squares the king can
+     * safely stand on rules out castling out of, through or into check.
      */
-    public static void addMoves(King king, Board board, List<Move> moves) {
-        // The king cannot castle if it has already moved
-        if (king.hasMoved()) {
+    public static void addMoves(King king, Board board, long targets, List<Move> moves) {
+        // The king cannot castle once it has given up its castling rights
+        boolean white = king.getColor() == PieceColor.WHITE;
+        int castlingRights = board.getCastlingRights();
+        int kingside = white ? Board.WHITE_KINGSIDE : Board.BLACK_KINGSIDE;
+        int queenside = white ? Board.WHITE_QUEENSIDE : Board.BLACK_QUEENSIDE;
+        if ((castlingRights & (kingside | queenside)) == 0) {
             return;
         }
 
-        // Determine row
-        int row;
-        if (king.getColor() == PieceColor.WHITE) {
-            row = 0;
-        } else {
-            assert (king.getColor() == PieceColor.BLACK);
-            row = board.getRows() - 1;
+        // The king cannot castle out of check
+        if ((targets & MoveGenerator.getSquareMask(king.getPosition())) == 0) {
+            return;
         }
 
+        // Determine row
+        int row = white ? 0 : board.getRows() - 1;
+
         // Try castling west
-        Piece rook = board.getPiece(0, row);
-        if (rook != null && rook instanceof Rook && !rook.hasMoved()) {
-            if (board.getPiece(1, row) == null && board.getPiece(2, row) == null && board.getPiece(3, row) == null) {
-                CastleMove move = new CastleMove(king, king.getPosition(), new Point(2, row), rook.getPosition(),
-                        new Point(3, row));
+        if ((castlingRights & queenside) != 0) {
+            if (board.getPiece(1, row) == null && board.getPiece(2, row) == null && board.getPiece(3, row) == null
+                    && (targets & MoveGenerator.getSquareMask(2, row)) != 0
+                    && (targets & MoveGenerator.getSquareMask(3, row)) != 0) {
+                CastleMove move = new CastleMove(king, king.getPosition(), Square.getIndex(2, row),
+                        Square.getIndex(0, row), Square.getIndex(3, row));
                 moves.add(move);
             }
         }
 
         // Try castling east
-        rook = board.getPiece(7, row);
-        if (rook != null && rook instanceof Rook && !rook.hasMoved()) {
-            if (board.getPiece(5, row) == null && board.getPiece(6, row) == null) {
-                CastleMove move = new CastleMove(king, king.getPosition(), new Point(6, row), rook.getPosition(),
-                        new Point(5, row));
+        if ((castlingRights & kingside) != 0) {
+            if (board.getPiece(5, row) == null && board.getPiece(6, row) == null
+                    && (targets & MoveGenerator.getSquareMask(5, row)) != 0
+                    && (targets & MoveGenerator.getSquareMask(6, row)) != 0) {
+                CastleMove move = new CastleMove(king, king.getPosition(), Square.getIndex(6, row),
+                        Square.getIndex(7, row), Square.getIndex(5, row));
                 moves.add(move);
             }
         }
@@ -89,21 +95,18 @@ public class CastleMove extends Move {
         Board board = game.getBoard();
         Piece king = board.getPiece(this.from);
         Piece rook = board.getPiece(this.rookFrom);
+        board.setCastlingRights(board.getCastlingRightsAfter(this.from, this.to));
 
         // Move the pieces
-        board.getSquare(this.to).setPiece(king);
-        board.getSquare(this.from).setPiece(null);
-        board.getSquare(this.rookTo).setPiece(rook);
-        board.getSquare(this.rookFrom).setPiece(null);
+        board.setPiece(this.from, null);
+        board.setPiece(this.rookFrom, null);
+        board.setPiece(this.to, king);
+        board.setPiece(this.rookTo, rook);
         king.setPosition(this.to);
         rook.setPosition(this.rookTo);
 
         // Track the king's position
         board.setKingPosition(king.getColor(), this.to);
-
-        // Track movement counts
-        king.moveCount += 1;
-        rook.moveCount += 1;
     }
 
     @Override
@@ -116,45 +119,34 @@ public class CastleMove extends Move {
         Piece rook = board.getPiece(this.rookTo);
 
         // Move the pieces back to where they were
-        board.getSquare(this.from).setPiece(king);
-        board.getSquare(this.to).setPiece(null);
-        board.getSquare(this.rookFrom).setPiece(rook);
-        board.getSquare(this.rookTo).setPiece(null);
+        board.setPiece(this.to, null);
+        board.setPiece(this.rookTo, null);
+        board.setPiece(this.from, king);
+        board.setPiece(this.rookFrom, rook);
         king.setPosition(this.from);
         rook.setPosition(this.rookFrom);
+        board.setCastlingRights(game.getUndoStack().getCastlingRights());
 
         // Track the king's position
         board.setKingPosition(king.getColor(), this.from);
-
-        // Track movement counts
-        king.moveCount -= 1;
-        rook.moveCount -= 1;
     }
 
     @Override
     /**
-     * Returns whether this move is valid for the specified game
+     * Returns the hash key of the position resulting from this move, without
+     * executing it
      */
-    public boolean isValid(Game game) {
-        // This move is invalid if the king is in check
-        if (game.isCheck()) {
-            return false;
-        }
-
-        // The move is invalid if the king passes through check
-        int x = this.from.x;
-        int xTo = this.to.x;
-        int dir = xTo - x > 0 ? 1 : -1;
-        boolean valid = true;
-        while (x != xTo && valid) {
-            x += dir;
-            Move moveKing = new Move(this.from, new Point(x, this.to.y), this.fromPiece, null);
-            game.executeMove(moveKing, false);
-            valid = !game.isCheck();
-            game.undoMove(moveKing, false);
-        }
-
-        return valid;
+    public long getHashKey(Game game) {
+        Board board = game.getBoard();
+        Piece rook = board.getPiece(this.rookFrom);
+        long key = game.getHashKey() ^ Zobrist.getSideKey();
+        key ^= Zobrist.getKey(this.fromPiece, this.from);
+        key ^= Zobrist.getKey(this.fromPiece, this.to);
+        key ^= Zobrist.getKey(rook, this.rookFrom);
+        key ^= Zobrist.getKey(rook, this.rookTo);
+        key ^= Zobrist.getCastlingKey(board.getCastlingRights());
+        key ^= Zobrist.getCastlingKey(board.getCastlingRightsAfter(this.from, this.to));
+        return key;
     }
 
     @Override
@@ -164,8 +156,8 @@ public class CastleMove extends Move {
     public String toString() {
         StringBuilder str = new StringBuilder();
         str.append(this.fromPiece.getDescription() + " ");
-        String from = Character.toString('a' + this.from.x) + (this.from.y + 1);
-        String to = Character.toString('a' + this.to.x) + (this.to.y + 1);
+        String from = Square.getName(this.from);
+        String to = Square.getName(this.to);
         str.append(String.format("castles from %s to %s", from, to));
         return str.toString();
     }
@@ -175,7 +167,7 @@ public class CastleMove extends Move {
      */
     private CastleMove(CastleMove other) {
         super(other.from, other.to, other.fromPiece, null);
-        this.rookFrom = new Point(other.rookFrom);
-        this.rookTo = new Point(other.rookTo);
+        this.rookFrom = other.rookFrom;
+        this.rookTo = other.rookTo;
     }
 }
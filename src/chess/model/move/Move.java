@@ -1,32 +1,33 @@
 package chess.model.move;
 
-import java.awt.Point;
-
 import chess.model.Board;
 import chess.model.Game;
+import chess.model.Square;
+import chess.model.UndoStack;
+import chess.model.Zobrist;
 import chess.model.piece.King;
 import chess.model.piece.Piece;
 
 /**
- * Represents a move from one (x,y) position to another
+ * Represents a move from one square to another
  */
 public class Move {
-    /** The position to move from */
-    public final Point from;
+    /** The index of the square to move from */
+    public final int from;
 
-    /** The position to move to */
-    public final Point to;
+    /** The index of the square to move to */
+    public final int to;
 
     /** The moving piece */
-    public Piece fromPiece;
+    public final Piece fromPiece;
 
     /** The piece at the position we're moving to, if any */
-    public Piece toPiece;
+    public final Piece toPiece;
 
     /**
      * Move constructor
      */
-    public Move(Point from, Point to, Piece fromPiece, Piece toPiece) {
+    public Move(int from, int to, Piece fromPiece, Piece toPiece) {
         this.from = from;
         this.to = to;
         this.fromPiece = fromPiece != null ? fromPiece.copy() : null;
@@ -36,8 +37,8 @@ public class Move {
     /**
      * Move constructor
      */
-    public Move(Point to) {
-        this.from = null;
+    public Move(int to) {
+        this.from = Square.NONE;
         this.to = to;
         this.fromPiece = null;
         this.toPiece = null;
@@ -51,58 +52,76 @@ public class Move {
     }
 
     /**
-     * Executes this move for the specified game
+     * Executes this move for the specified game, whose undo stack has recorded
+     * the state before it
      */
     public void execute(Game game) {
-        // Move the piece
         Board board = game.getBoard();
-        board.getSquare(this.to).setPiece(this.fromPiece);
-        board.getSquare(this.from).setPiece(null);
-        this.fromPiece.setPosition(this.to);
-        if (this.toPiece != null) {
-            this.toPiece.setPosition(null);
+        Piece piece = board.getPiece(this.from);
+        Piece captured = board.getPiece(this.to);
+        board.setCastlingRights(board.getCastlingRightsAfter(this.from, this.to));
+
+        // Move the piece
+        board.setPiece(this.from, null);
+        board.setPiece(this.to, piece);
+        piece.setPosition(this.to);
+        if (captured != null) {
+            captured.setPosition(Square.NONE);
         }
 
         // Track the king's position
-        if (this.fromPiece instanceof King) {
-            board.setKingPosition(this.fromPiece.getColor(), this.to);
+        if (piece instanceof King) {
+            board.setKingPosition(piece.getColor(), this.to);
         }
-
-        // Track movement counts
-        this.fromPiece.moveCount += 1;
     }
 
     /**
-     * Undo this move for the specified game
+     * Undo this move for the specified game, restoring the state recorded on top
+     * of its undo stack
      */
     public void undo(Game game) {
-        // Move the pieces back to where they were
         Board board = game.getBoard();
-        board.getSquare(this.from).setPiece(this.fromPiece);
-        board.getSquare(this.to).setPiece(this.toPiece);
-        this.fromPiece.setPosition(this.from);
-        if (this.toPiece != null) {
-            this.toPiece.setPosition(this.to);
+        UndoStack undoStack = game.getUndoStack();
+        Piece piece = board.getPiece(this.to);
+        Piece captured = undoStack.getCapturedPiece(this.to);
+
+        // Move the pieces back to where they were
+        board.setPiece(this.to, captured);
+        board.setPiece(this.from, piece);
+        piece.setPosition(this.from);
+        if (captured != null) {
+            captured.setPosition(this.to);
         }
+        board.setCastlingRights(undoStack.getCastlingRights());
 
         // Track the king's position
-        if (this.fromPiece instanceof King) {
-            board.setKingPosition(this.fromPiece.getColor(), this.from);
+        if (piece instanceof King) {
+            board.setKingPosition(piece.getColor(), this.from);
         }
+    }
 
-        // Track movement counts
-        this.fromPiece.moveCount -= 1;
+    /**
+     * Returns the hash key of the position resulting from this move, without
+     * executing it
+     */
+    public long getHashKey(Game game) {
+        Board board = game.getBoard();
+        long key = game.getHashKey() ^ Zobrist.getSideKey();
+        key ^= Zobrist.getKey(this.fromPiece, this.from);
+        key ^= Zobrist.getKey(this.fromPiece, this.to);
+        if (this.toPiece != null) {
+            key ^= Zobrist.getKey(this.toPiece, this.to);
+        }
+        key ^= Zobrist.getCastlingKey(board.getCastlingRights());
+        key ^= Zobrist.getCastlingKey(board.getCastlingRightsAfter(this.from, this.to));
+        return key;
     }
 
     /**
-     * Returns whether this move is valid for the specified game
+     * Returns this move in coordinate notation, e.g. "e2e4"
      */
-    public boolean isValid(Game game) {
-        // This move is valid as long as it doesn't result in check
-        game.executeMove(this, false);
-        boolean valid = !game.isCheck();
-        game.undoMove(this, false);
-        return valid;
+    public String toNotation() {
+        return Square.getName(this.from) + Square.getName(this.to);
     }
 
     @Override
@@ -112,8 +131,8 @@ public class Move {
     public String toString() {
         StringBuilder str = new StringBuilder();
         str.append(this.fromPiece.getDescription() + " ");
-        String from = Character.toString('a' + this.from.x) + (this.from.y + 1);
-        String to = Character.toString('a' + this.to.x) + (this.to.y + 1);
+        String from = Square.getName(this.from);
+        String to = Square.getName(this.to);
         if (this.toPiece != null) {
             str.append(String.format("takes %s (%s to %s)", toPiece.getDescription(), from, to));
         } else {
@@ -139,15 +158,15 @@ public class Move {
 
         // We don't care about the square to move from
         Move move = (Move) object;
-        return move.to.equals(this.to);
+        return move.to == this.to;
     }
 
     /**
      * Move copy constructor
      */
     private Move(Move other) {
-        this.from = new Point(other.from);
-        this.to = new Point(other.to);
+        this.from = other.from;
+        this.to = other.to;
         this.fromPiece = other.fromPiece != null ? other.fromPiece.copy() : null;
         this.toPiece = other.toPiece != null ? other.toPiece.copy() : null;
     }
@@ -0,0 +1,238 @@
+package chess.model.move;
+
+import java.util.List;
+
+import chess.model.AttackTables;
+import chess.model.Board;
+import chess.model.Direction;
+import chess.model.Square;
+import chess.model.piece.Piece;
+import chess.model.piece.PieceColor;
+import chess.model.piece.PieceId;
+
+/**
+ * Generates strictly legal moves
+ *
+ * The pieces giving check and the pinned pieces are found once per position
+ * by looking outwards from the king. Each piece then only generates moves to
+ * the squares in its target mask: while in check, the squares that capture or
+ * block the checking piece; for a pinned piece, the squares along its pin; for
+ * the king, the squares the opponent doesn't attack. No move has to be tried
+ * on the board to prove it legal.
+ *
+ * Squares are mapped to mask bits by their index, y * 8 + x. Rays and jump
+ * targets come from AttackTables.
+ *
+ * https://www.chessprogramming.org/Move_Generation#Legal
+ * https://www.chessprogramming.org/Pin
+ */
+public class MoveGenerator {
+    /** Target mask allowing every square */
+    public static final long ALL_SQUARES = -1L;
+
+    /** All ray directions, cached since values() copies the array */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * Returns the mask bit of the square at position (x,y)
+     */
+    public static long getSquareMask(int x, int y) {
+        return getSquareMask(Square.getIndex(x, y));
+    }
+
+    /**
+     * Returns the mask bit of the square with the specified index
+     */
+    public static long getSquareMask(int square) {
+        return 1L << square;
+    }
+
+    /**
+     * Adds the specified color's legal moves to the given list, or only the
+     * legal moves of the specified piece if it isn't null
+     */
+    public static void getLegalMoves(Board board, PieceColor color, Piece piece, List<Move> moves) {
+        int king = board.getKingPosition(color);
+        PieceColor enemy = color == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+
+        // Without a king, every move is legal
+        long checkMask = ALL_SQUARES;
+        long pinned = 0;
+        int checkers = 0;
+        if (king != Square.NONE) {
+            checkMask = 0;
+
+            // Look along each ray from the king: an enemy slider is either giving check,
+            // or pinning the first piece of our own in between
+            for (Direction direction : DIRECTIONS) {
+                boolean diagonal = direction.x != 0 && direction.y != 0;
+                long ray = 0;
+                long candidate = 0;
+                for (int index : AttackTables.getRay(direction, king)) {
+                    long square = getSquareMask(index);
+                    ray |= square;
+                    Piece other = board.getPiece(index);
+                    if (other != null) {
+                        if (other.getColor() == color) {
+                            if (candidate != 0) {
+                                break;
+                            }
+                            candidate = square;
+                        } else {
+                            if (isSlider(other, diagonal)) {
+                                if (candidate == 0) {
+                                    checkers += 1;
+                                    checkMask |= ray;
+                                } else {
+                                    pinned |= candidate;
+                                }
+                            }
+                            break;
+                        }
+                    }
+                }
+            }
+
+            // Knights and pawns can only be captured to resolve their check
+            for (int square : AttackTables.getKnightTargets(king)) {
+                if (isPiece(board, square, enemy, PieceId.KNIGHT)) {
+                    checkers += 1;
+                    checkMask |= getSquareMask(square);
+                }
+            }
+            for (int square : AttackTables.getPawnCaptures(color, king)) {
+                if (isPiece(board, square, enemy, PieceId.PAWN)) {
+                    checkers += 1;
+                    checkMask |= getSquareMask(square);
+                }
+            }
+            if (checkers == 0) {
+                checkMask = ALL_SQUARES;
+            }
+        }
+
+        // Generate each piece's moves to its target squares
+        int only = piece != null ? piece.getPosition() : Square.NONE;
+        if (piece != null && only == Square.NONE) {
+            return;
+        }
+        for (int x = 0; x < board.getRows(); x++) {
+            for (int y = 0; y < board.getColumns(); y++) {
+                Piece current = board.getPiece(x, y);
+                int square = Square.getIndex(x, y);
+                if (current == null || current.getColor() != color || (only != Square.NONE && square != only)) {
+                    continue;
+                }
+
+                long targets;
+                if (king != Square.NONE && current.getId() == PieceId.KING) {
+                    targets = getKingTargets(board, king, enemy, checkers == 0);
+                } else if (checkers > 1) {
+                    // Only the king can escape a double check
+                    continue;
+                } else {
+                    targets = checkMask;
+                    if ((pinned & getSquareMask(square)) != 0) {
+                        targets &= AttackTables.getLine(king, square);
+                    }
+                }
+                current.getMoves(board, targets, moves);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the square at position (x,y) is attacked by the specified
+     * color, treating the square to ignore (or Square.NONE) as empty
+     */
+    public static boolean isAttacked(Board board, int x, int y, PieceColor attacker, int ignore) {
+        return isAttacked(board, Square.getIndex(x, y), attacker, ignore);
+    }
+
+    /**
+     * Returns whether the square with the specified index is attacked by the
+     * specified color, treating the square to ignore (or Square.NONE) as empty
+     */
+    public static boolean isAttacked(Board board, int square, PieceColor attacker, int ignore) {
+        for (int index : AttackTables.getKnightTargets(square)) {
+            if (isPiece(board, index, attacker, PieceId.KNIGHT)) {
+                return true;
+            }
+        }
+
+        // Pawns attack diagonally forward, so look backwards from the square
+        PieceColor defender = attacker == PieceColor.WHITE ? PieceColor.BLACK : PieceColor.WHITE;
+        for (int index : AttackTables.getPawnCaptures(defender, square)) {
+            if (isPiece(board, index, attacker, PieceId.PAWN)) {
+                return true;
+            }
+        }
+
+        for (int index : AttackTables.getKingTargets(square)) {
+            if (isPiece(board, index, attacker, PieceId.KING)) {
+                return true;
+            }
+        }
+
+        // The first piece along each ray attacks the square if it slides that way
+        for (Direction direction : DIRECTIONS) {
+            boolean diagonal = direction.x != 0 && direction.y != 0;
+            for (int index : AttackTables.getRay(direction, square)) {
+                Piece other = board.getPiece(index);
+                if (other != null && index != ignore) {
+                    if (other.getColor() == attacker && isSlider(other, diagonal)) {
+                        return true;
+                    }
+                    break;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the squares the king can move to without being attacked, including
+     * its own square if castling is allowed
+     */
+    private static long getKingTargets(Board board, int king, PieceColor enemy, boolean canCastle) {
+        long targets = 0;
+
+        // The king no longer blocks the rays of pieces attacking it
+        for (int square : AttackTables.getKingTargets(king)) {
+            if (!isAttacked(board, square, enemy, king)) {
+                targets |= getSquareMask(square);
+            }
+        }
+
+        // Two squares sideways only for castling
+        if (canCastle) {
+            targets |= getSquareMask(king);
+            int y = Square.getY(king);
+            for (int dx = -2; dx <= 2; dx += 4) {
+                int x = Square.getX(king) + dx;
+                if (board.isValidPosition(x, y) && !isAttacked(board, x, y, enemy, king)) {
+                    targets |= getSquareMask(x, y);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Returns whether the specified piece slides along diagonal (or otherwise
+     * orthogonal) rays
+     */
+    private static boolean isSlider(Piece piece, boolean diagonal) {
+        PieceId id = piece.getId();
+        return id == PieceId.QUEEN || id == (diagonal ? PieceId.BISHOP : PieceId.ROOK);
+    }
+
+    /**
+     * Returns whether the square with the specified index holds a piece of the
+     * specified color and type
+     */
+    private static boolean isPiece(Board board, int square, PieceColor color, PieceId id) {
+        Piece piece = board.getPiece(square);
+        return piece != null && piece.getColor() == color && piece.getId() == id;
+    }
+}
@@ -0,0 +1,79 @@
+package chess.model.move;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An immutable list of moves, most recent first
+ *
+ * Each list is a single move in front of the list it was pushed onto, so
+ * pushing and popping allocate at most one node and never change an existing
+ * list. Copies of a game share their histories instead of cloning them, which
+ * is safe since moves are never changed after they are made.
+ */
+public final class MoveHistory {
+    /** The empty history */
+    public static final MoveHistory EMPTY = new MoveHistory(null, null, 0);
+
+    /** The most recent move */
+    private final Move move;
+
+    /** The moves before it */
+    private final MoveHistory previous;
+
+    /** Number of moves */
+    private final int size;
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * MoveHistory constructor
+     */
+    private MoveHistory(Move move, MoveHistory previous, int size) {
+        this.move = move;
+        this.previous = previous;
+        this.size = size;
+    }
+
+    /**
+     * Returns whether this history has no moves
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Returns this history with the specified move added as the most recent
+     */
+    public MoveHistory push(Move move) {
+        return new MoveHistory(move, this, this.size + 1);
+    }
+
+    /**
+     * Returns the most recent move, if any
+     */
+    public Move peek() {
+        return this.move;
+    }
+
+    /**
+     * Returns this history without its most recent move
+     */
+    public MoveHistory pop() {
+        return this.size > 0 ? this.previous : this;
+    }
+
+    /**
+     * Returns the moves in this history, oldest first
+     */
+    public List<Move> toList() {
+        List<Move> moves = new ArrayList<Move>(this.size);
+        for (MoveHistory history = this; history.size > 0; history = history.previous) {
+            moves.add(history.move);
+        }
+        Collections.reverse(moves);
+        return moves;
+    }
+}
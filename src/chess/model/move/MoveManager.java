@@ -1,6 +1,5 @@
 package chess.model.move;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,29 +17,29 @@ public class MoveManager {
 
     /** Undo and redo moves in pairs */
     public boolean canUndo() {
-        return this.undoStack.size() >= 2 && this.undoStack.size() % 2 == 0;
+        return this.history.size() >= 2 && this.history.size() % 2 == 0;
     }
     public boolean canRedo() {
-        return this.redoStack.size() >= 2 && this.redoStack.size() % 2 == 0;
+        return this.redoHistory.size() >= 2 && this.redoHistory.size() % 2 == 0;
     }
-    private ArrayDeque<Move> undoStack;
-    private ArrayDeque<Move> redoStack;
 
-    /** Move history (most recent move last) */
-    private ArrayDeque<Move> history;
+    /** Executed moves, which are also the moves to undo */
+    private MoveHistory history;
+
+    /** Undone moves to redo, most recently undone first */
+    private MoveHistory redoHistory;
 
     /**
      * MoveManager constructor
      */
     public MoveManager(Game game) {
         this.game = game;
-        this.undoStack = new ArrayDeque<Move>();
-        this.redoStack = new ArrayDeque<Move>();
-        this.history = new ArrayDeque<Move>();
+        this.history = MoveHistory.EMPTY;
+        this.redoHistory = MoveHistory.EMPTY;
     }
 
     /**
-     * Returns a deep copy of this move manager
+     * Returns a copy of this move manager, sharing its immutable histories
      */
     public MoveManager copy(Game game) {
         return new MoveManager(this, game);
@@ -50,9 +49,8 @@ public class MoveManager {
      * Resets this move manager
      */
     public void reset() {
-        this.undoStack = new ArrayDeque<Move>();
-        this.redoStack = new ArrayDeque<Move>();
-        this.history = new ArrayDeque<Move>();
+        this.history = MoveHistory.EMPTY;
+        this.redoHistory = MoveHistory.EMPTY;
     }
 
     /**
@@ -60,17 +58,17 @@ public class MoveManager {
      */
     public void execute(Move move) {
         this.execute(move, true);
-        this.redoStack.clear();
+        this.redoHistory = MoveHistory.EMPTY;
     }
 
     /**
      * Executes a move
      */
     public void execute(Move move, boolean history) {
+        this.game.pushHistory(move);
         move.execute(this.game);
         if (history) {
-            this.undoStack.push(move);
-            this.history.addLast(move);
+            this.history = this.history.push(move);
         }
     }
 
@@ -79,9 +77,10 @@ public class MoveManager {
      */
     public void undo(Move move, boolean history) {
         move.undo(this.game);
+        this.game.popHistory();
         if (history) {
-            this.redoStack.push(move);
-            this.history.removeLast();
+            this.redoHistory = this.redoHistory.push(move);
+            this.history = this.history.pop();
         }
     }
 
@@ -90,24 +89,23 @@ public class MoveManager {
      */
     public List<Move> getValidMoves(Player player) {
         List<Move> moves = new ArrayList<Move>();
-        for (Move move : this.getMoves(player)) {
-            if (move.isValid(this.game)) {
-                moves.add(move);
-            }
-        }
+        this.getValidMoves(player, moves);
         return moves;
     }
 
+    /**
+     * Adds all of the specified player's valid moves to the given list
+     */
+    public void getValidMoves(Player player, List<Move> moves) {
+        MoveGenerator.getLegalMoves(this.game.getBoard(), player.getColor(), null, moves);
+    }
+
     /**
      * Returns all of the specified piece's valid moves
      */
     public List<Move> getValidMoves(Piece piece) {
         List<Move> moves = new ArrayList<Move>();
-        for (Move move : this.getMoves(piece)) {
-            if (move.isValid(this.game)) {
-                moves.add(move);
-            }
-        }
+        MoveGenerator.getLegalMoves(this.game.getBoard(), piece.getColor(), piece, moves);
         return moves;
     }
 
@@ -134,10 +132,11 @@ public class MoveManager {
             return false;
         }
 
-        Move first = this.redoStack.pop();
-        Move second = this.redoStack.pop();
-        this.execute(first, true);
-        this.execute(second, true);
+        for (int i = 0; i < 2; i++) {
+            Move move = this.redoHistory.peek();
+            this.redoHistory = this.redoHistory.pop();
+            this.execute(move, true);
+        }
         return true;
     }
 
@@ -149,18 +148,23 @@ public class MoveManager {
             return false;
         }
 
-        Move first = this.undoStack.pop();
-        Move second = this.undoStack.pop();
-        this.undo(first, true);
-        this.undo(second, true);
+        this.undo(this.history.peek(), true);
+        this.undo(this.history.peek(), true);
         return true;
     }
 
     /**
-     * Returns the move history
+     * Returns the move history, oldest first
      */
     public List<Move> getHistory() {
-        return new ArrayList<Move>(this.history);
+        return this.history.toList();
+    }
+
+    /**
+     * Returns the most recent move, if any
+     */
+    public Move getMostRecentMove() {
+        return this.history.peek();
     }
 
     /**
@@ -178,10 +182,7 @@ public class MoveManager {
      */
     private MoveManager(MoveManager other, Game game) {
         this.game = game;
-
-        // TODO:DML
-        this.undoStack = other.undoStack.clone();
-        this.redoStack = other.redoStack.clone();
-        this.history = other.history.clone();
+        this.history = other.history;
+        this.redoHistory = other.redoHistory;
     }
 }
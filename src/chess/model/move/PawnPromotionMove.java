@@ -1,10 +1,11 @@
 package chess.model.move;
 
-import java.awt.Point;
-
+import chess.model.Board;
 import chess.model.Game;
-import chess.model.piece.Pawn;
+import chess.model.Zobrist;
 import chess.model.piece.Piece;
+import chess.model.piece.PieceColor;
+import chess.model.piece.PieceId;
 import chess.model.piece.Queen;
 
 /**
@@ -15,7 +16,7 @@ public class PawnPromotionMove extends Move {
     /**
      * PawnPromotionMove constructor
      */
-    public PawnPromotionMove(Point from, Point to, Piece fromPiece, Piece toPiece) {
+    public PawnPromotionMove(int from, int to, Piece fromPiece, Piece toPiece) {
         super(from, to, fromPiece, toPiece);
     }
     
@@ -32,9 +33,11 @@ public class PawnPromotionMove extends Move {
      * Executes this move for the specified game
      */
     public void execute(Game game) {
-        // For now, just default to a new queen to avoid a dialog
-        this.fromPiece = new Queen(this.fromPiece.getColor(), this.from);
         super.execute(game);
+
+        // For now, just default to a new queen to avoid a dialog
+        Board board = game.getBoard();
+        board.setPiece(this.to, new Queen(this.fromPiece.getColor(), this.to));
     }
 
     @Override
@@ -42,10 +45,26 @@ public class PawnPromotionMove extends Move {
      * Undo this move for the specified game
      */
     public void undo(Game game) {
-        this.fromPiece = new Pawn(this.fromPiece.getColor(), from);
+        // Swap the queen for the pawn it was, then move the pawn back
+        Board board = game.getBoard();
+        board.setPiece(this.to, game.getUndoStack().getMovedPiece(this.to));
         super.undo(game);
     }
 
+    @Override
+    /**
+     * Returns the hash key of the position resulting from this move, without
+     * executing it
+     */
+    public long getHashKey(Game game) {
+        // The pawn arrives as a queen
+        PieceColor color = this.fromPiece.getColor();
+        long key = super.getHashKey(game);
+        key ^= Zobrist.getKey(color, PieceId.PAWN, this.to);
+        key ^= Zobrist.getKey(color, PieceId.QUEEN, this.to);
+        return key;
+    }
+
     @Override
     /**
      * Override toString()
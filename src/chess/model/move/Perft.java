@@ -0,0 +1,203 @@
+package chess.model.move;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import chess.model.Game;
+import chess.model.Position;
+
+/**
+ * Counts the leaf nodes of the legal move tree to a fixed depth
+ *
+ * Comparing the counts with known values checks the move generator, and
+ * timing them measures it without any search on top. Moves at the last ply
+ * are counted without being executed (bulk counting). An optional hash table
+ * reuses the counts of transposed subtrees, and several threads can split the
+ * root moves between them.
+ *
+ * The model doesn't generate en passant captures or underpromotions, so
+ * positions where they occur count fewer nodes than the published values.
+ *
+ * https://www.chessprogramming.org/Perft
+ * https://www.chessprogramming.org/Perft_Results
+ */
+public class Perft {
+    /** Bytes per hash slot (two longs) */
+    private static final int SLOT_BYTES = 16;
+
+    /** Bits of the slot data holding the depth; the count is stored above them */
+    private static final int DEPTH_BITS = 8;
+
+    /** Hash slots stored as [key ^ data, data] pairs, or null without a table */
+    private final long[] slots;
+
+    /** Mask selecting a slot index from a hash key */
+    private final int mask;
+
+    /**
+     * Perft constructor, without a hash table
+     */
+    public Perft() {
+        this(0);
+    }
+
+    /**
+     * Perft constructor, with a hash table of the specified size in megabytes
+     * (or none if 0)
+     */
+    public Perft(int hashSizeMb) {
+        if (hashSizeMb > 0) {
+            // Round down to a power of two so slots can be selected with a mask
+            long slotCount = Long.highestOneBit((long) hashSizeMb * 1024 * 1024 / SLOT_BYTES);
+            this.slots = new long[(int) slotCount * 2];
+            this.mask = (int) slotCount - 1;
+        } else {
+            this.slots = null;
+            this.mask = 0;
+        }
+    }
+
+    /**
+     * Returns the number of leaf nodes at the specified depth below the game's
+     * current position
+     */
+    public long count(Game game, int depth) {
+        List<List<Move>> moveLists = new ArrayList<List<Move>>();
+        for (int i = 0; i < depth; i++) {
+            moveLists.add(new ArrayList<Move>());
+        }
+        return this.count(game, depth, moveLists);
+    }
+
+    /**
+     * Returns the number of leaf nodes below each of the root's legal moves, by
+     * move notation in generation order
+     */
+    public Map<String, Long> divide(Position position, int depth) {
+        return this.divide(position, depth, 1);
+    }
+
+    /**
+     * Returns the number of leaf nodes below each of the root's legal moves, by
+     * move notation in generation order, splitting the root moves among the
+     * specified number of threads
+     *
+     * At depth 0 the only leaf is the root itself, which is below no move, so
+     * the result is empty.
+     */
+    public Map<String, Long> divide(Position position, int depth, int threads) {
+        Map<String, Long> counts = new LinkedHashMap<String, Long>();
+        if (depth == 0) {
+            return counts;
+        }
+
+        Game root = position.toGame();
+        List<Move> moves = root.getValidMoves(root.getActivePlayer());
+        if (depth == 1) {
+            for (Move move : moves) {
+                counts.put(move.toNotation(), 1L);
+            }
+            return counts;
+        }
+
+        // Each root move is counted on a game of its own, so tasks share nothing but
+        // the lockless hash table
+        List<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+        for (Move move : moves) {
+            tasks.add(() -> {
+                Game game = position.toGame();
+                game.executeMove(move, false);
+                game.endTurn(false);
+                return this.count(game, depth - 1);
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Long>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < moves.size(); i++) {
+                counts.put(moves.get(i).toNotation(), results.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        return counts;
+    }
+
+    /**
+     * Returns the number of leaf nodes at the specified depth, reusing a move
+     * list per ply
+     */
+    private long count(Game game, int depth, List<List<Move>> moveLists) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        long key = game.getHashKey();
+        if (depth > 1) {
+            long stored = this.probe(key, depth);
+            if (stored >= 0) {
+                return stored;
+            }
+        }
+
+        List<Move> moves = moveLists.get(depth - 1);
+        moves.clear();
+        game.getValidMoves(game.getActivePlayer(), moves);
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.get(i);
+            game.executeMove(move, false);
+            game.endTurn(false);
+            nodes += this.count(game, depth - 1, moveLists);
+            game.undoMove(move, false);
+            game.endTurn(false);
+        }
+        this.store(key, depth, nodes);
+        return nodes;
+    }
+
+    /**
+     * Returns the stored count of the specified position at the specified
+     * depth, or -1 if there is none
+     */
+    private long probe(long key, int depth) {
+        if (this.slots == null) {
+            return -1;
+        }
+        int idx = ((int) key & this.mask) << 1;
+        long data = this.slots[idx + 1];
+        if ((this.slots[idx] ^ data) != key || (data & ((1 << DEPTH_BITS) - 1)) != depth) {
+            return -1;
+        }
+        return data >>> DEPTH_BITS;
+    }
+
+    /**
+     * Stores the count of the specified position at the specified depth
+     */
+    private void store(long key, int depth, long nodes) {
+        if (this.slots == null) {
+            return;
+        }
+        int idx = ((int) key & this.mask) << 1;
+        long data = (nodes << DEPTH_BITS) | depth;
+        this.slots[idx] = key ^ data;
+        this.slots[idx + 1] = data;
+    }
+}
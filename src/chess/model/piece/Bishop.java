@@ -1,10 +1,9 @@
 package chess.model.piece;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.List;
 
 import chess.model.Board;
+import chess.model.Square;
 import chess.model.move.Move;
 
 /**
@@ -14,27 +13,22 @@ public class Bishop extends Piece {
     /**
      * Bishop constructor
      */
-    public Bishop(PieceColor color, Point position) {
+    public Bishop(PieceColor color, int position) {
         this(color, position, 0);
     }
 
     @Override
     /**
-     * Returns this piece's possible moves given the current board
-     * 
-     * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
+     * Adds this piece's possible moves to squares in the target mask, given the
+     * current board
      */
-    public List<Move> getMoves(Board board) {
-        List<Move> moves = new ArrayList<Move>();
-        if (this.position == null) {
-            return moves;
+    public void getMoves(Board board, long targets, List<Move> moves) {
+        if (this.position == Square.NONE) {
+            return;
         }
 
         // The bishop can move diagonally
-        this.addDiagonalMoves(board, moves);
-
-        return moves;
+        this.addDiagonalMoves(board, targets, moves);
     }
 
     @Override
@@ -42,13 +36,13 @@ public class Bishop extends Piece {
      * Returns a deep copy of this piece
      */
     public Piece copy() {
-        return new Bishop(this.color, this.copyPosition(), this.moveCount);
+        return new Bishop(this.color, this.position, this.moveCount);
     }
 
     /**
      * Bishop constructor
      */
-    private Bishop(PieceColor color, Point position, int moveCount) {
+    private Bishop(PieceColor color, int position, int moveCount) {
         super(color, position, moveCount);
         this.id = PieceId.BISHOP;
     }
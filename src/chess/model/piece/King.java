@@ -1,13 +1,13 @@
 package chess.model.piece;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.List;
 
+import chess.model.AttackTables;
 import chess.model.Board;
-import chess.model.Direction;
+import chess.model.Square;
 import chess.model.move.CastleMove;
 import chess.model.move.Move;
+import chess.model.move.MoveType;
 
 /**
  * Representation of a King chess piece
@@ -16,32 +16,25 @@ public class King extends Piece {
     /**
      * King constructor
      */
-    public King(PieceColor color, Point position) {
+    public King(PieceColor color, int position) {
         this(color, position, 0);
     }
 
     @Override
     /**
-     * Returns this piece's possible moves given the current board
-     * 
-     * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
+     * Adds this piece's possible moves to squares in the target mask, given the
+     * current board
      */
-    public List<Move> getMoves(Board board) {
-        List<Move> moves = new ArrayList<Move>();
-        if (this.position == null) {
-            return moves;
+    public void getMoves(Board board, long targets, List<Move> moves) {
+        if (this.position == Square.NONE) {
+            return;
         }
 
         // The king can move one square in any direction
-        for (Direction direction : Direction.values()) {
-            this.addMove(board, this.position.x + direction.x, this.position.y + direction.y, moves);
-        }
+        this.addMoves(board, AttackTables.getKingTargets(this.position), targets, moves, MoveType.ANY);
 
         // The king can castle under certain conditions
-        CastleMove.addMoves(this, board, moves);
-
-        return moves;
+        CastleMove.addMoves(this, board, targets, moves);
     }
 
     @Override
@@ -49,13 +42,13 @@ public class King extends Piece {
      * Returns a deep copy of this piece
      */
     public Piece copy() {
-        return new King(this.color, this.copyPosition(), this.moveCount);
+        return new King(this.color, this.position, this.moveCount);
     }
 
     /**
      * King constructor
      */
-    private King(PieceColor color, Point position, int moveCount) {
+    private King(PieceColor color, int position, int moveCount) {
         super(color, position, moveCount);
         this.id = PieceId.KING;
     }
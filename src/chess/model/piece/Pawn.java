@@ -1,11 +1,10 @@
 package chess.model.piece;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.List;
 
+import chess.model.AttackTables;
 import chess.model.Board;
-import chess.model.Direction;
+import chess.model.Square;
 import chess.model.move.Move;
 import chess.model.move.MoveType;
 import chess.model.move.PawnPromotionMove;
@@ -17,62 +16,50 @@ public class Pawn extends Piece {
     /**
      * Pawn constructor
      */
-    public Pawn(PieceColor color, Point position) {
+    public Pawn(PieceColor color, int position) {
         this(color, position, 0);
     }
 
     @Override
     /**
-     * Returns this piece's possible moves given the current board
-     * 
-     * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
+     * Adds this piece's possible moves to squares in the target mask, given the
+     * current board
      */
-    public List<Move> getMoves(Board board) {
-        List<Move> moves = new ArrayList<Move>();
-        if (this.position == null) {
-            return moves;
+    public void getMoves(Board board, long targets, List<Move> moves) {
+        if (this.position == Square.NONE) {
+            return;
         }
 
-        int x = this.position.x;
-        int y = this.position.y;
-        Direction forward = this.color == PieceColor.WHITE ? Direction.NORTH : Direction.SOUTH;
+        int x = Square.getX(this.position);
+        int y = Square.getY(this.position);
+        int start = moves.size();
+        int forward = this.color == PieceColor.WHITE ? 1 : -1;
+        int nextRow = y + forward;
+        if (nextRow < 0 || nextRow >= board.getRows()) {
+            return;
+        }
 
         // Pawns can always move 1 square forward
-        this.addMove(board, x, y + forward.y, moves, MoveType.MOVE_ONLY);
+        boolean empty = this.addMove(board, Square.getIndex(x, nextRow), targets, moves, MoveType.MOVE_ONLY);
 
-        // Pawns can move forward 2 squares on their first move
-        if (!this.hasMoved() && moves.size() > 0) {
-            this.addMove(board, x, y + (forward.y * 2), moves, MoveType.MOVE_ONLY);
+        // Pawns can move forward 2 squares from their starting row
+        int startRow = this.color == PieceColor.WHITE ? 1 : board.getRows() - 2;
+        if (y == startRow && empty) {
+            this.addMove(board, Square.getIndex(x, nextRow + forward), targets, moves, MoveType.MOVE_ONLY);
         }
 
         // Pawns can attack diagonally 1 square forward
-        switch (forward) {
-        case NORTH:
-            this.addMove(board, x + Direction.NORTHWEST.x, y + forward.y, moves, MoveType.ATTACK_ONLY);
-            this.addMove(board, x + Direction.NORTHEAST.x, y + forward.y, moves, MoveType.ATTACK_ONLY);
-            break;
-
-        case SOUTH:
-            this.addMove(board, x + Direction.SOUTHWEST.x, y + forward.y, moves, MoveType.ATTACK_ONLY);
-            this.addMove(board, x + Direction.SOUTHEAST.x, y + forward.y, moves, MoveType.ATTACK_ONLY);
-            break;
-
-        default:
-            break;
-        }
+        this.addMoves(board, AttackTables.getPawnCaptures(this.color, this.position), targets, moves,
+                MoveType.ATTACK_ONLY);
 
         // Pawns can be promoted when the reach the other side of the board
-        if (y + forward.y == board.getRows() - 1 || y + forward.y == 0) {
-            // Convert all moves to pawn promotion moves
-            List<Move> promotionMoves = new ArrayList<Move>();
-            for (Move move : moves) {
-                promotionMoves.add(new PawnPromotionMove(move.from, move.to, move.fromPiece, move.toPiece));
+        if (nextRow == board.getRows() - 1 || nextRow == 0) {
+            // Convert this pawn's moves to pawn promotion moves
+            for (int i = start; i < moves.size(); i++) {
+                Move move = moves.get(i);
+                moves.set(i, new PawnPromotionMove(move.from, move.to, move.fromPiece, move.toPiece));
             }
-            moves = promotionMoves;
         }
-
-        return moves;
     }
 
     @Override
@@ -80,13 +67,13 @@ public class Pawn extends Piece {
      * Returns a deep copy of this piece
      */
     public Piece copy() {
-        return new Pawn(this.color, this.copyPosition(), this.moveCount);
+        return new Pawn(this.color, this.position, this.moveCount);
     }
 
     /**
      * Pawn constructor
      */
-    private Pawn(PieceColor color, Point position, int moveCount) {
+    private Pawn(PieceColor color, int position, int moveCount) {
         super(color, position, moveCount);
         this.id = PieceId.PAWN;
     }
@@ -1,19 +1,23 @@
 package chess.model.piece;
 
-import java.awt.Point;
 import java.util.ArrayList;
 import java.util.List;
 
+import chess.model.AttackTables;
 import chess.model.Board;
 import chess.model.Direction;
-import chess.model.Square;
 import chess.model.move.Move;
+import chess.model.move.MoveGenerator;
 import chess.model.move.MoveType;
 
 /**
  * Abstract representation of a chess piece
  */
 public abstract class Piece {
+    /** Piece ids and colors by ordinal, for decoding piece codes */
+    private static final PieceId[] IDS = PieceId.values();
+    private static final PieceColor[] COLORS = PieceColor.values();
+
     /** The piece's type */
     protected PieceId id;
     public PieceId getId() { return this.id; }
@@ -22,26 +26,26 @@ public abstract class Piece {
     protected PieceColor color;
     public PieceColor getColor() { return this.color; }
     
-    /** This piece's current (x,y) position on the board, if any */
-    protected Point position;
-    public Point getPosition() { return this.position; }
-    public void setPosition(Point position) { this.position = position; }
+    /** The index of this piece's current square on the board, or Square.NONE */
+    protected int position;
+    public int getPosition() { return this.position; }
+    public void setPosition(int position) { this.position = position; }
     
-    /** Has this piece been moved? */
+    /** Had this piece been moved when the board was set up? Decides the initial castling rights */
     public int moveCount;
     public boolean hasMoved() { return this.moveCount != 0; }
 
     /**
      * Piece constructor
      */
-    public Piece(PieceColor color, Point position) {
+    public Piece(PieceColor color, int position) {
         this(color, position, 0);
     }
 
     /**
      * Piece constructor
      */
-    public Piece(PieceColor color, Point position, int moveCount) {
+    public Piece(PieceColor color, int position, int moveCount) {
         this.color = color;
         this.position = position;
         this.moveCount = moveCount;
@@ -52,13 +56,55 @@ public abstract class Piece {
      */
     public abstract Piece copy();
 
+    /**
+     * Returns this piece's code for compact boards: 1 + color * 6 + id, so
+     * that 0 can stand for an empty square
+     */
+    public byte getCode() {
+        return (byte) (1 + this.color.ordinal() * IDS.length + this.id.ordinal());
+    }
+
+    /**
+     * Returns a new, unmoved piece for the specified code (see getCode()) on
+     * the square with the specified index
+     */
+    public static Piece fromCode(int code, int position) {
+        PieceColor color = COLORS[(code - 1) / IDS.length];
+        switch (IDS[(code - 1) % IDS.length]) {
+        case KING:
+            return new King(color, position);
+        case QUEEN:
+            return new Queen(color, position);
+        case ROOK:
+            return new Rook(color, position);
+        case BISHOP:
+            return new Bishop(color, position);
+        case KNIGHT:
+            return new Knight(color, position);
+        default:
+            return new Pawn(color, position);
+        }
+    }
+
     /**
      * Returns this piece's possible moves given the current board
      * 
      * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
      */
-    public abstract List<Move> getMoves(Board board);
+    public List<Move> getMoves(Board board) {
+        List<Move> moves = new ArrayList<Move>();
+        this.getMoves(board, MoveGenerator.ALL_SQUARES, moves);
+        return moves;
+    }
+
+    /**
+     * Adds this piece's possible moves to squares in the target mask, given the
+     * current board
+     * 
+     * Note: Moves that would put the player in check are only left out if the
+     * target mask excludes them; see MoveGenerator.
+     */
+    public abstract void getMoves(Board board, long targets, List<Move> moves);
 
     @Override
     /**
@@ -78,83 +124,72 @@ public abstract class Piece {
     /**
      * Adds this piece's possible horizontal and vertical moves
      */
-    protected void addOrthogonalMoves(Board board, List<Move> moves) {
+    protected void addOrthogonalMoves(Board board, long targets, List<Move> moves) {
         for (Direction direction : Direction.Orthogonals) {
-            moves.addAll(this.getMoves(this.position.x, this.position.y, direction, board));
+            this.addMoves(board, direction, targets, moves);
         }
     }
 
     /**
      * Adds this piece's possible diagonal moves
      */
-    protected void addDiagonalMoves(Board board, List<Move> moves) {
+    protected void addDiagonalMoves(Board board, long targets, List<Move> moves) {
         for (Direction direction : Direction.Diagonals) {
-            moves.addAll(this.getMoves(this.position.x, this.position.y, direction, board));
+            this.addMoves(board, direction, targets, moves);
         }
     }
 
     /**
-     * Adds a move to the specified square if possible (i.e., if the square is empty
-     * or contains an enemy piece). Returns true if the square is empty, false
-     * otherwise.
+     * Adds a move to the square with the specified index if possible (i.e., if
+     * the square is empty or contains an enemy piece, and is in the target mask).
+     * Returns true if the square is empty, false otherwise.
      */
-    protected boolean addMove(Board board, int x, int y, List<Move> moves) {
-        return this.addMove(board, x, y, moves, MoveType.ANY);
+    protected boolean addMove(Board board, int to, long targets, List<Move> moves) {
+        return this.addMove(board, to, targets, moves, MoveType.ANY);
     }
 
     /**
-     * Adds a move to the specified position if possible. Returns true if the square
-     * is valid and empty, false otherwise.
+     * Adds a move to the square with the specified index if possible. Returns
+     * true if the square is empty, false otherwise, whether or not it is in the
+     * target mask.
      */
-    protected boolean addMove(Board board, int x, int y, List<Move> moves, MoveType moveType) {
-        Square to = board.getSquare(x, y);
-
-        if (to == null) {
-            return false;
-        }
-
-        boolean move = false;
-        boolean empty = true;
-        Piece toPiece = to.getPiece();
+    protected boolean addMove(Board board, int to, long targets, List<Move> moves, MoveType moveType) {
+        boolean target = (targets & MoveGenerator.getSquareMask(to)) != 0;
+        Piece toPiece = board.getPiece(to);
 
         // There is a piece on this square
         if (toPiece != null) {
-            empty = false;
-            if (moveType != MoveType.MOVE_ONLY && this.color != toPiece.getColor()) {
-                move = true;
+            if (target && moveType != MoveType.MOVE_ONLY && this.color != toPiece.getColor()) {
+                moves.add(new Move(this.position, to, this, toPiece));
             }
+            return false;
         }
 
         // This square is empty, and we are allowed to move without attacking
-        else if (moveType != MoveType.ATTACK_ONLY) {
-            move = true;
-        }
-
-        if (move) {
-            moves.add(new Move(this.position, to.getPosition(), this, toPiece));
+        if (target && moveType != MoveType.ATTACK_ONLY) {
+            moves.add(new Move(this.position, to, this, null));
         }
-
-        return empty;
+        return true;
     }
 
     /**
-     * Returns a deep copy of this piece's position
+     * Adds this piece's possible moves to each of the specified squares
      */
-    protected Point copyPosition() {
-        return this.position != null ? new Point(this.position) : null;
+    protected void addMoves(Board board, int[] squares, long targets, List<Move> moves, MoveType moveType) {
+        for (int to : squares) {
+            this.addMove(board, to, targets, moves, moveType);
+        }
     }
 
     /**
-     * Returns this piece's possible moves in a given direction
+     * Adds this piece's possible moves in a given direction
      */
-    private List<Move> getMoves(int x, int y, Direction direction, Board board) {
-        List<Move> moves = new ArrayList<Move>();
-        while (this.addMove(board, x + direction.x, y + direction.y, moves)) {
-            x += direction.x;
-            y += direction.y;
+    private void addMoves(Board board, Direction direction, long targets, List<Move> moves) {
+        for (int to : AttackTables.getRay(direction, this.position)) {
+            if (!this.addMove(board, to, targets, moves)) {
+                break;
+            }
         }
-
-        return moves;
     }
 
     @Override
@@ -167,7 +202,7 @@ public abstract class Piece {
         result = prime * result + ((color == null) ? 0 : color.hashCode());
         result = prime * result + ((id == null) ? 0 : id.hashCode());
         result = prime * result + moveCount;
-        result = prime * result + ((position == null) ? 0 : position.hashCode());
+        result = prime * result + position;
         return result;
     }
 
@@ -189,10 +224,7 @@ public abstract class Piece {
             return false;
         if (moveCount != other.moveCount)
             return false;
-        if (position == null) {
-            if (other.position != null)
-                return false;
-        } else if (!position.equals(other.position))
+        if (position != other.position)
             return false;
         return true;
     }
@@ -1,10 +1,9 @@
 package chess.model.piece;
 
-import java.awt.Point;
-import java.util.ArrayList;
 import java.util.List;
 
 import chess.model.Board;
+import chess.model.Square;
 import chess.model.move.Move;
 
 /**
@@ -14,28 +13,23 @@ public class Queen extends Piece {
     /**
      * Queen constructor
      */
-    public Queen(PieceColor color, Point position) {
+    public Queen(PieceColor color, int position) {
         this(color, position, 0);
     }
 
     @Override
     /**
-     * Returns this piece's possible moves given the current board
-     * 
-     * Note: This function may return moves that would put the player in check.
-     * These moves are filtered elsewhere.
+     * Adds this piece's possible moves to squares in the target mask, given the
+     * current board
      */
-    public List<Move> getMoves(Board board) {
-        List<Move> moves = new ArrayList<Move>();
-        if (this.position == null) {
-            return moves;
+    public void getMoves(Board board, long targets, List<Move> moves) {
+        if (this.position == Square.NONE) {
+            return;
         }
 
         // The queen can move diagonally and orthogonally
-        this.addDiagonalMoves(board, moves);
-        this.addOrthogonalMoves(board, moves);
-
-        return moves;
+        this.addDiagonalMoves(board, targets, moves);
+        this.addOrthogonalMoves(board, targets, moves);
     }
 
     @Override
@@ -43,13 +37,13 @@ public class Queen extends Piece {
      * Returns a deep copy of this piece
      */
     public Piece copy() {
-        return new Queen(this.color, this.copyPosition(), this.moveCount);
+        return new Queen(this.color, this.position, this.moveCount);
     }
 
     /**
      * Queen constructor
      */
-    private Queen(PieceColor color, Point position, int moveCount) {
+    private Queen(PieceColor color, int position, int moveCount) {
         super(color, position, moveCount);
         this.id = PieceId.QUEEN;
     }